@@ -0,0 +1,71 @@
+package benchmarks;
+
+import networking.protocol.Command;
+import networking.protocol.Handler;
+import networking.protocol.Message;
+import networking.protocol.WireFormat;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A notification sent to every connection of a room, encoded for each connection or once for all of them,
+ * a quarter of the connections using the binary protocol.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BroadcastBenchmark {
+
+    @Param({"4", "64", "512"})
+    public int recipients;
+
+    private Handler[] handlers;
+
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        handlers = new Handler[recipients];
+        for (int i = 0; i < recipients; i++) {
+            handlers[i] = new Sink(blackhole);
+            if (i % 4 == 0) handlers[i].setFormat(WireFormat.BINARY);
+        }
+    }
+
+    @Benchmark
+    public void perRecipient() {
+        for (Handler handler : handlers) handler.sendCommand(Command.NEXT, "alice", "bob");
+    }
+
+    @Benchmark
+    public void shared() {
+        Message message = Message.of(Command.NEXT, "alice", "bob");
+        for (Handler handler : handlers) handler.send(message);
+    }
+
+    /**
+     * Connection dropping what is written to it.
+     */
+    private static class Sink extends Handler {
+
+        private final Blackhole blackhole;
+
+        private Sink(Blackhole blackhole) {
+            this.blackhole = blackhole;
+        }
+
+        @Override
+        public void run() {}
+
+        @Override
+        protected void buffer(byte[] frame) {
+            blackhole.consume(frame);
+        }
+
+        @Override
+        protected void flush() {}
+    }
+}
@@ -0,0 +1,51 @@
+package benchmarks;
+
+import logic.utils.Card;
+import logic.utils.Deck;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Operations on the draw pile, the size of the pile is kept the same between invocations.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DeckBenchmark {
+
+    private Deck deck;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        deck = new Deck();
+        deck.insertExplosionsAndDefuses(4);
+    }
+
+    @Benchmark
+    public Deck construct() {
+        return new Deck();
+    }
+
+    @Benchmark
+    public Deck shuffle() {
+        deck.shuffle();
+        return deck;
+    }
+
+    @Benchmark
+    public Card drawCard() {
+        Card card = deck.drawCard();
+        deck.insertCardAtPosition(card, deck.size()); // put it back on top
+        return card;
+    }
+
+    @Benchmark
+    public Card insertCardAtPosition() {
+        deck.insertCardAtPosition(Card.EXPLODING_KITTEN, deck.size() / 2);
+        return deck.drawCard();
+    }
+}
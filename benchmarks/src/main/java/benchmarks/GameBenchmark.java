@@ -0,0 +1,28 @@
+package benchmarks;
+
+import logic.simulation.Simulation;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Whole games played by in-memory agents, every turn going through the rules of Game.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class GameBenchmark {
+
+    @Param({"2", "4"})
+    public int players;
+
+    private long seed = 42;
+
+    @Benchmark
+    public int game() {
+        return Simulation.play(players, seed++);
+    }
+}
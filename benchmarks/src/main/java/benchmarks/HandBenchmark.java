@@ -0,0 +1,83 @@
+package benchmarks;
+
+import logic.utils.Card;
+import logic.utils.players.ClientPlayer;
+import logic.utils.players.ComputerPlayer;
+import logic.utils.players.Player;
+import networking.protocol.Args;
+import networking.protocol.Command;
+import networking.protocol.Tokenizer;
+import networking.protocol.WireFormat;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding of the hand sent in every "Players" update and its decoding into the hand of the client,
+ * the way Handler.handleCommand and ServerHandler.handlePlayer do it.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class HandBenchmark {
+
+    @Param({"7", "20"})
+    public int handSize;
+
+    @Param
+    public WireFormat format;
+
+    private final Tokenizer tokenizer = new Tokenizer();
+    private Player player;
+    private ClientPlayer client;
+    private byte[] update;
+
+    @Setup
+    public void setUp() {
+        Card[] values = Card.values();
+        player = new Player("server");
+        for (int i = 0; i < handSize; i++) player.addCard(values[i % Card.DRAW.ordinal()]);
+        client = new ComputerPlayer("client");
+        update = encode();
+    }
+
+    @Benchmark
+    public String getCards() {
+        return player.getCards();
+    }
+
+    @Benchmark
+    public ClientPlayer setCards() {
+        client.setCards(decode(update).cards(0));
+        return client;
+    }
+
+    @Benchmark
+    public ClientPlayer roundTrip() {
+        client.setCards(decode(encode()).cards(0));
+        return client;
+    }
+
+    /**
+     * Encodes the "Players" update of the player as StateSync sends it.
+     */
+    private byte[] encode() {
+        return format.encode(Command.PLAYERS, player.getCards(), Card.ATTACK.name(), "42");
+    }
+
+    /**
+     * Decodes an update as the handler of the client does, the frame reader having stripped the line terminator
+     * or the length.
+     */
+    private Args decode(byte[] frame) {
+        if (format == WireFormat.TEXT) {
+            tokenizer.load(frame, 0, frame.length - 1);
+            return tokenizer.args();
+        }
+        Command command = WireFormat.decodeCommand(frame, 2);
+        return WireFormat.decodeArgs(command, frame, 2, frame.length - 2);
+    }
+}
@@ -0,0 +1,91 @@
+package benchmarks;
+
+import networking.protocol.ArgType;
+import networking.protocol.Args;
+import networking.protocol.Command;
+import networking.protocol.Tokenizer;
+import networking.protocol.WireFormat;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing done by Handler.handleCommand for every command, in both wire formats, then the reading of each argument
+ * as its type, as the handlers do, stopping before the command is executed as the client side handlers need a running client.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ProtocolBenchmark {
+
+    @Param
+    public Command command;
+
+    private final Tokenizer tokenizer = new Tokenizer();
+    private byte[] line;
+    private byte[] frame;
+
+    @Setup
+    public void setUp() {
+        String[] args = new String[command.getMaxArgs()];
+        for (int i = 0; i < args.length; i++) args[i] = sample(command.getArgType(i));
+
+        line = WireFormat.TEXT.encode(command, args);
+        frame = WireFormat.BINARY.encode(command, args);
+    }
+
+    /**
+     * Gives a typical value of an argument.
+     *
+     * @param type The type of the argument.
+     * @return The argument as sent in the text protocol.
+     */
+    private static String sample(ArgType type) {
+        switch (type) {
+            case NAMES:
+                return "alice, bob, carol";
+            case CARD:
+                return "ATTACK";
+            case CARDS:
+                return "DEFUSE,ATTACK,SKIP,NOPE,TACOCAT,FAVOR,SEE_THE_FUTURE";
+            case NUMBER:
+                return "42";
+            default:
+                return "alice";
+        }
+    }
+
+    @Benchmark
+    public void text(Blackhole blackhole) {
+        tokenizer.load(line, 0, line.length - 1); // the frame reader strips the line terminator
+        read(tokenizer.command(), tokenizer.args(), blackhole);
+    }
+
+    @Benchmark
+    public void binary(Blackhole blackhole) {
+        Command decoded = WireFormat.decodeCommand(frame, 2); // the frame reader strips the length
+        read(decoded, WireFormat.decodeArgs(decoded, frame, 2, frame.length - 2), blackhole);
+    }
+
+    private static void read(Command command, Args args, Blackhole blackhole) {
+        for (int i = 0; i < args.length(); i++) {
+            switch (command.getArgType(i)) {
+                case CARD:
+                    blackhole.consume(args.card(i));
+                    break;
+                case CARDS:
+                    blackhole.consume(args.cards(i));
+                    break;
+                case NUMBER:
+                    blackhole.consume(args.number(i));
+                    break;
+                default:
+                    blackhole.consume(args.get(i));
+            }
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package logic;
+
+import networking.protocol.Message;
+
+/**
+ * Viewers of a game, sent every message broadcast to the players and the public state of the game, never a hand.
+ * Called on the loop of the game, so sending must never wait on a viewer.
+ */
+public interface Audience {
+
+    Audience NONE = new Audience() {
+        @Override
+        public boolean isEmpty() {
+            return true;
+        }
+
+        @Override
+        public void send(Message message) {}
+    };
+
+    /**
+     * Checks if nobody is watching, the game then skips building its public state.
+     *
+     * @return true if there is no viewer, false otherwise.
+     */
+    boolean isEmpty();
+
+    /**
+     * Sends a message to every viewer.
+     *
+     * @param message The message to be sent.
+     */
+    void send(Message message);
+}
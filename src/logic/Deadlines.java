@@ -0,0 +1,79 @@
+package logic;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time given to a player to answer what the game waits for from them, the game then acts for them:
+ * it draws a card at the end of a turn, picks a random target for a FAVOR, gives a random card asked for
+ * by a FAVOR and places the defused kitten at a random position.
+ */
+public class Deadlines {
+
+    public enum Interaction {
+        TURN,      // play or draw
+        TARGET,    // choose who gives a card for a FAVOR
+        DEMAND,    // give a card for a FAVOR
+        PLACEMENT  // put the defused kitten back in the deck
+    }
+
+    public static final Deadlines NONE = new Deadlines(0, 0, 0, 0);
+    public static final long DEFAULT_TURN = 60; // seconds
+    public static final long DEFAULT_ANSWER = 30; // seconds, to the other questions
+    public static final Deadlines DEFAULT = new Deadlines(
+            TimeUnit.SECONDS.toMillis(DEFAULT_TURN),
+            TimeUnit.SECONDS.toMillis(DEFAULT_ANSWER),
+            TimeUnit.SECONDS.toMillis(DEFAULT_ANSWER),
+            TimeUnit.SECONDS.toMillis(DEFAULT_ANSWER)
+    );
+
+    private final long[] delays;
+
+    /**
+     * @param turn The time to play or draw, in milliseconds, 0 for no limit.
+     * @param target The time to choose the target of a FAVOR, in milliseconds, 0 for no limit.
+     * @param demand The time to give a card for a FAVOR, in milliseconds, 0 for no limit.
+     * @param placement The time to place a defused kitten, in milliseconds, 0 for no limit.
+     */
+    public Deadlines(long turn, long target, long demand, long placement) {
+        this.delays = new long[]{turn, target, demand, placement};
+    }
+
+    /**
+     * Reads deadlines written as seconds separated by commas in the order of {@link Interaction},
+     * the interactions left out take the last value given.
+     *
+     * @param text The deadlines, such as "60,30".
+     * @return The deadlines.
+     * @throws NumberFormatException If a value is not a number.
+     */
+    public static Deadlines parse(String text) throws NumberFormatException {
+        String[] values = text.split(",");
+        long[] delays = new long[Interaction.values().length];
+        for (int i = 0; i < delays.length; i++) {
+            delays[i] = TimeUnit.SECONDS.toMillis(Long.parseLong(values[Math.min(i, values.length - 1)].trim()));
+        }
+        return new Deadlines(delays[0], delays[1], delays[2], delays[3]);
+    }
+
+    /**
+     * Retrieves the time given for an interaction.
+     *
+     * @param interaction The interaction the game waits for.
+     * @return The delay in milliseconds, 0 or less for no limit.
+     */
+    public long get(Interaction interaction) {
+        return delays[interaction.ordinal()];
+    }
+
+    /**
+     * Checks if any interaction has a limit.
+     *
+     * @return true if the game has to track deadlines, false otherwise.
+     */
+    public boolean isEnabled() {
+        for (long delay : delays) {
+            if (delay > 0) return true;
+        }
+        return false;
+    }
+}
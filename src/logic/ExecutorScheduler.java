@@ -0,0 +1,33 @@
+package logic;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scheduler backed by a ScheduledExecutorService, for games played in real time.
+ */
+public class ExecutorScheduler implements Scheduler {
+
+    private final ScheduledExecutorService executor;
+
+    public ExecutorScheduler(ScheduledExecutorService executor) {
+        this.executor = executor;
+    }
+
+    @Override
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        ScheduledFuture<?> future = executor.schedule(task, delay, unit);
+        return new Timeout() {
+            @Override
+            public void cancel() {
+                future.cancel(false);
+            }
+
+            @Override
+            public boolean isExpired() {
+                return future.getDelay(TimeUnit.MILLISECONDS) <= 0;
+            }
+        };
+    }
+}
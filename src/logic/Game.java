@@ -1,12 +1,18 @@
 package logic;
 
+import logic.journal.Entry;
+import logic.journal.Event;
+import logic.journal.Journal;
+import logic.journal.Snapshot;
 import logic.utils.Card;
 import logic.utils.Deck;
 import logic.utils.players.Player;
+import metrics.Metrics;
 import networking.protocol.Command;
 import networking.protocol.Error;
-import networking.server.ClientHandler;
-import networking.server.ServerGame;
+import networking.protocol.ExecutionMode;
+import networking.protocol.Message;
+import networking.protocol.WriteBatch;
 
 import java.util.*;
 import java.util.concurrent.*;
@@ -17,34 +23,318 @@ public class Game {
     // Constants
     public static final int DEFAULT_HAND_SIZE = 7;
     public static final int DEFUSES_COUNT = 6;
-    public static final int NOPE_DELAY = 10;
-    public static final ScheduledExecutorService DELAYED_EXECUTOR = Executors.newSingleThreadScheduledExecutor();
+    public static final int NOPE_DELAY = 10; // seconds, default of every game
+    public static final TimingWheel DELAYED_SCHEDULER = new TimingWheel();
 
     // Game data
-    protected final List<ClientHandler> clientHandlers;
+    protected final List<? extends Participant> clientHandlers;
+    private final List<Participant> seats; // every participant in the order of the start, for the journal
     protected final Deck deck;
+    private final Runnable onGameEnd;
+    private final GameLoop loop;
+    private final Scheduler scheduler;
+    private SplittableRandom random;
+    private final long seed;
+    private Journal journal;
+    private Audience audience;
+    private String publicState; // last state described to the audience
 
     // Players for turn logic
-    protected ClientHandler currentClient;
-    private ClientHandler previousClient;
+    protected Participant currentClient;
+    private Participant previousClient;
 
     // Game turns utils
     private final Stack<Card> actionStack;
     private final Stack<Card> skippedStack;
     private Card nopedCard;
     private Card lastCard;
-    private ClientHandler favorTarget;
-    private ScheduledFuture<?> delayedAction;
-    private Thread delayedThread;
+    private Participant favorTarget;
+    private Scheduler.Timeout delayedAction;
+    private long nopeDelay;
+    private int nopeWindow;
     private boolean awaitUserInteraction;
     private boolean canNope;
 
-    public Game(List<ClientHandler> clientHandlers) {
+    // Deadline of the interaction the game waits for
+    private Deadlines deadlines;
+    private Scheduler.Timeout deadline;
+    private int deadlineId;
+    private Deadlines.Interaction pending;
+    private Participant pendingFrom;
+    private long pendingStep;
+    private long step; // accepted actions, any of them gives a new deadline
+
+    public Game(List<? extends Participant> clientHandlers, Runnable onGameEnd) {
+        this(clientHandlers, onGameEnd, ExecutionMode.current().executor(), DELAYED_SCHEDULER, ThreadLocalRandom.current().nextLong());
+    }
+
+    /**
+     * Creates a game running its events on the given executor and its nope windows on the given scheduler,
+     * simulations use them to play without threads nor waiting.
+     * All the randomness of the game comes from the seed, the same seed and the same moves replay the same game.
+     *
+     * @param clientHandlers The participants of the game, the losers are removed from the list.
+     * @param onGameEnd Called once a single participant is left.
+     * @param executor The executor draining the loop of the game.
+     * @param scheduler The scheduler of the nope windows.
+     * @param seed The seed of the shuffles and of the starting player.
+     */
+    public Game(List<? extends Participant> clientHandlers, Runnable onGameEnd, Executor executor, Scheduler scheduler, long seed) {
         this.clientHandlers = clientHandlers;
-        this.deck = new Deck();
+        this.seats = new ArrayList<>(clientHandlers);
+        this.onGameEnd = onGameEnd;
+        this.scheduler = scheduler;
+        this.seed = seed;
+        this.random = new SplittableRandom(seed);
+        this.deck = new Deck(random.split());
         this.actionStack = new Stack<>();
         this.skippedStack = new Stack<>();
         this.awaitUserInteraction = false;
+        this.loop = new GameLoop(executor);
+        this.journal = Journal.NONE;
+        this.audience = Audience.NONE;
+        this.nopeDelay = TimeUnit.SECONDS.toMillis(NOPE_DELAY);
+        this.deadlines = Deadlines.NONE;
+    }
+
+    /**
+     * Restores a running game from a snapshot, the records journaled after it are then replayed on the loop of the game.
+     * The seats that had left are removed from the participants.
+     *
+     * @param snapshot The snapshot of the game.
+     * @param clientHandlers The participants of the game, in the order of its start.
+     * @param onGameEnd Called once a single participant is left.
+     * @param executor The executor draining the loop of the game.
+     * @param scheduler The scheduler of the nope windows.
+     */
+    public Game(Snapshot snapshot, List<? extends Participant> clientHandlers, Runnable onGameEnd, Executor executor, Scheduler scheduler) {
+        this(clientHandlers, onGameEnd, executor, scheduler, snapshot.getGame());
+        this.random = new SplittableRandom(snapshot.getRandom());
+        deck.load(snapshot.getDeck());
+
+        for (int seat = 0; seat < seats.size(); seat++) {
+            Participant clientHandler = seats.get(seat);
+            Player player = clientHandler.getPlayer();
+            player.reset();
+            for (Card card : Card.values()) {
+                for (int i = 0; i < snapshot.getCount(seat, card); i++) player.addCard(card);
+            }
+            if (snapshot.isOut(seat)) clientHandlers.remove(clientHandler);
+        }
+
+        actionStack.addAll(snapshot.getActionStack());
+        skippedStack.addAll(snapshot.getSkippedStack());
+        nopedCard = snapshot.getNopedCard();
+        lastCard = snapshot.getLastCard();
+        currentClient = seatAt(snapshot.getCurrent());
+        previousClient = seatAt(snapshot.getPrevious());
+        favorTarget = seatAt(snapshot.getFavorTarget());
+        nopeWindow = snapshot.getNopeWindow();
+        canNope = snapshot.canNope();
+        awaitUserInteraction = snapshot.isAwaitingUserInteraction();
+        if (snapshot.isWindowOpen()) { // the players are given a whole window again
+            int window = nopeWindow;
+            delayedAction = scheduler.schedule(() -> execute(() -> closeNopeWindow(window)), nopeDelay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private Participant seatAt(int seat) {
+        return seat < 0 ? null : seats.get(seat);
+    }
+
+    /**
+     * Takes a snapshot of the game, only on its loop. The game then draws its randomness from a new seed,
+     * kept in the snapshot and journaled, so a restored game goes on with the same shuffles.
+     *
+     * @param segment The segment of the journal being written, kept to find the records after the snapshot.
+     * @return The snapshot, or null if the game has not started.
+     */
+    public Snapshot snapshot(int segment) {
+        if (currentClient == null) return null;
+        long next = random.nextLong();
+        reseed(next);
+
+        int[][] hands = new int[seats.size()][Card.values().length];
+        boolean[] out = new boolean[seats.size()];
+        List<String> names = new ArrayList<>();
+        List<String> tokens = new ArrayList<>();
+        for (int seat = 0; seat < seats.size(); seat++) {
+            Participant clientHandler = seats.get(seat);
+            names.add(clientHandler.getPlayer().getName());
+            tokens.add(clientHandler.getToken() != null ? clientHandler.getToken() : "");
+            out[seat] = !clientHandlers.contains(clientHandler);
+            for (Card card : Card.values()) hands[seat][card.ordinal()] = clientHandler.getPlayer().getHand().count(card);
+        }
+        return new Snapshot(
+                seed, next, segment, names, tokens, out, hands, deck.toBytes(),
+                actionStack, skippedStack, nopedCard, lastCard,
+                seats.indexOf(currentClient), seatIndex(previousClient), seatIndex(favorTarget),
+                nopeWindow, delayedAction != null, canNope, awaitUserInteraction
+        );
+    }
+
+    private int seatIndex(Participant clientHandler) {
+        return clientHandler == null ? -1 : seats.indexOf(clientHandler);
+    }
+
+    /**
+     * Makes the game draw its randomness from a new seed.
+     *
+     * @param next The new seed.
+     */
+    private void reseed(long next) {
+        record(Event.SNAPSHOT, null, null, next);
+        random = new SplittableRandom(next);
+    }
+
+    /**
+     * Retrieves the seed of the game, to be logged so the game can be replayed.
+     *
+     * @return The seed.
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Sets the journal receiving the actions of the game, to be called before the game starts.
+     *
+     * @param journal The journal.
+     */
+    public void setJournal(Journal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * Appends a record of the game to its journal.
+     *
+     * @param event The kind of record.
+     * @param clientHandler The participant acting, if any.
+     * @param card The card involved, if any.
+     * @param value The value of the event.
+     */
+    private void record(Event event, Participant clientHandler, Card card, long value) {
+        step++;
+        if (journal == Journal.NONE) return;
+        journal.append(new Entry(seed, event, seatIndex(clientHandler), card, value));
+    }
+
+    /**
+     * Applies a record of the journal of this game, the derived records are left to be produced again by the rules.
+     * Used to rebuild a game from its journal, see {@link logic.journal.Replay}.
+     *
+     * @param record The record to be applied.
+     */
+    public void replay(Entry record) {
+        Participant clientHandler = seatAt(record.getSeat());
+        switch (record.getEvent()) {
+            case START:
+                startGame();
+                break;
+            case MOVE:
+            case NOPE:
+                doMove(clientHandler, record.getCard());
+                break;
+            case DRAW:
+                drawCard(clientHandler);
+                break;
+            case TARGET:
+                chooseTarget(clientHandler, seats.get((int) record.getValue()).getPlayer().getName());
+                break;
+            case GIVE:
+                giveCard(clientHandler, record.getCard());
+                break;
+            case PLACE:
+                place(clientHandler, record.getCard(), (int) record.getValue());
+                break;
+            case LEAVE:
+                gameOver(clientHandler);
+                break;
+            case WINDOW:
+                closeNopeWindow((int) record.getValue());
+                break;
+            case PASS:
+                passTurn(clientHandler, (int) record.getValue());
+                break;
+            case SNAPSHOT:
+                reseed(record.getValue());
+                break;
+        }
+    }
+
+    /**
+     * Changes the time given to nope a card, the windows already open keep their delay.
+     * A window reopened when the game is restored from a snapshot is given the default delay.
+     *
+     * @param nopeDelay The delay of the next nope windows, in milliseconds.
+     */
+    public void setNopeDelay(long nopeDelay) {
+        execute(() -> this.nopeDelay = nopeDelay);
+    }
+
+    /**
+     * Changes the time given to the players to answer the game, the game acts for those who take longer.
+     *
+     * @param deadlines The deadline of each interaction, {@link Deadlines#NONE} to wait as long as needed.
+     */
+    public void setDeadlines(Deadlines deadlines) {
+        execute(() -> {
+            this.deadlines = deadlines;
+            pendingStep = -1; // the interaction waited for gets the new deadline
+        });
+    }
+
+    /**
+     * Posts an event to the loop of the game, all the rules are evaluated in order on that loop.
+     *
+     * @param event The event to be run, usually a call to one of the game actions.
+     */
+    public void execute(Runnable event) {
+        loop.execute(() -> WriteBatch.run(() -> { // the messages of an event are flushed together
+            event.run();
+            armDeadline();
+            publishState();
+        }));
+    }
+
+    /**
+     * Sets the viewers of the game, sent its broadcasts and its public state after every event that changed it.
+     *
+     * @param audience The viewers of the game.
+     */
+    public void setAudience(Audience audience) {
+        this.audience = audience;
+    }
+
+    /**
+     * Describes what everybody can see of the game: the players left with the size of their hand,
+     * the last card played, the pile size and the current player. Only on the loop of the game, the state
+     * described is not sent again to the audience until it changes.
+     *
+     * @return The "State" message.
+     */
+    public Message describe() {
+        Message state = Message.of(
+                Command.STATE,
+                clientHandlers.stream()
+                        .map(clientHandler -> clientHandler.getPlayer().getName() + ":" + clientHandler.getPlayer().getHand().size())
+                        .collect(Collectors.joining(", ")),
+                lastCard == null ? "" : lastCard.name(),
+                String.valueOf(deck.size()),
+                currentClient == null ? "" : currentClient.getPlayer().getName()
+        );
+        publicState = String.join(Command.SEPARATOR, state.getArgs());
+        return state;
+    }
+
+    /**
+     * Sends the public state to the audience if it has changed since the last one sent.
+     */
+    private void publishState() {
+        if (audience.isEmpty()) return;
+        String previous = publicState;
+        Message state = describe();
+        if (!publicState.equals(previous)) audience.send(state);
     }
 
     /**
@@ -54,7 +344,9 @@ public class Game {
      * @param args Additional arguments for the command, if any.
      */
     private void broadcast(Command command, String... args) {
-        clientHandlers.forEach((client) -> client.sendCommand(command, args));
+        Message message = Message.of(command, args); // encoded once for all the clients
+        clientHandlers.forEach((client) -> client.send(message));
+        audience.send(message);
     }
 
     /**
@@ -62,13 +354,20 @@ public class Game {
      *
      */
     public void startGame() {
+        journal.append(new Entry(
+                seed,
+                Event.START,
+                -1,
+                null,
+                0,
+                seats.stream().map(clientHandler -> clientHandler.getPlayer().getName()).collect(Collectors.toList())
+        ));
         dealInitialCards();
         deck.insertExplosionsAndDefuses(clientHandlers.size());
 
         pickStartingPlayer();
         broadcast(Command.NOTIFY, "The game has been started!");
         nextTurn();
-        System.out.println("A game has started!");
     }
 
     /**
@@ -77,7 +376,7 @@ public class Game {
      * Sends a command to each client handler to update their player's cards and the number of cards left in the deck.
      */
     private void dealInitialCards() {
-        for (ClientHandler clientHandler : clientHandlers) {
+        for (Participant clientHandler : clientHandlers) {
             Player player = clientHandler.getPlayer();
             for (int i = 1; i < DEFAULT_HAND_SIZE; i++) {
                 Card card = deck.drawCard();
@@ -92,7 +391,6 @@ public class Game {
      * Randomly select the starting player
      */
     private void pickStartingPlayer() {
-        Random random = new Random();
         int startingPlayerIndex = random.nextInt(clientHandlers.size());
         currentClient = clientHandlers.get(startingPlayerIndex);
     }
@@ -104,14 +402,17 @@ public class Game {
      * @param clientHandler The client handler making the move.
      * @param card          The card played by the client.
      */
-    public void doMove(ClientHandler clientHandler, Card card) {
+    public void doMove(Participant clientHandler, Card card) {
+        closeExpiredWindow();
         // Handle unknown card and when the user has to send a specific action or if it doesn't have a card
-        if (card == null || awaitUserInteraction || !clientHandler.getPlayer().hasCard(card)) {
+        // no card can be played, not even a nope, until the current player has put a defused kitten back
+        if (card == null || awaitUserInteraction || awaitPlacement() || !clientHandler.getPlayer().hasCard(card)) {
             clientHandler.sendError(Error.E3);
             return;
         }
 
         if (card.equals(Card.NOPE)) { // let player play nope card in any circumstances
+            record(Event.NOPE, clientHandler, card, 0);
             playNope(clientHandler);
             return;
         }
@@ -137,13 +438,18 @@ public class Game {
      *
      * @param clientHandler The client handler to send the command to.
      */
-    private void sendPlayerUpdate(ClientHandler clientHandler) {
-        clientHandler.sendCommand(
-                Command.PLAYERS,
-                clientHandler.getPlayer().getCards(),
-                lastCard != null ? lastCard.name(): "",
-                deck.size() + ""
-        );
+    private void sendPlayerUpdate(Participant clientHandler) {
+        clientHandler.sendState(lastCard, deck.size(), false);
+    }
+
+    /**
+     * Sends the full state to a client that missed an update.
+     *
+     * @param clientHandler The client handler asking for it.
+     */
+    public void resync(Participant clientHandler) {
+        if (!clientHandlers.contains(clientHandler)) return;
+        clientHandler.sendState(lastCard, deck.size(), true);
     }
 
     /**
@@ -151,8 +457,9 @@ public class Game {
      *
      * @param clientHandler The client handler of the player who played the "NOPE" card.
      */
-    private void playNope(ClientHandler clientHandler) {
+    private void playNope(Participant clientHandler) {
         clientHandler.getPlayer().playCard(Card.NOPE);
+        sendPlayerUpdate(clientHandler);
         // prevent current player receiving double updates
         if (!clientHandler.equals(currentClient) || !canNope) clientHandler.sendCommand(Command.EXECUTEDMOVE);
         if (!canNope) return;
@@ -169,6 +476,7 @@ public class Game {
                 currentClient.sendCommand(Command.EXECUTEDMOVE);
                 currentClient = previousClient;
                 previousClient = null;
+                record(Event.TURN, currentClient, null, 0);
 
                 // reverse first attack action
                 if (!actionStack.isEmpty() && actionStack.peek().equals(Card.ATTACK) && actionStack.size() == 1) {
@@ -183,8 +491,12 @@ public class Game {
                 actionStack.push(Card.SKIP);
             }
 
-            nopedCard = actionStack.pop();
-            lastCard = Card.NOPE;
+            if (actionStack.isEmpty()) { // nothing left to nope, the previous player has to draw again
+                actionStack.push(Card.DRAW);
+            } else {
+                nopedCard = actionStack.pop();
+                lastCard = Card.NOPE;
+            }
         }
 
         doEffects();
@@ -205,17 +517,13 @@ public class Game {
      */
     private void cancelDelayedTask(boolean doCard) {
         if (delayedAction != null) {
-            // wait for termination if its running
-            if (delayedAction.getDelay(TimeUnit.MILLISECONDS) <= 0) {
+            if (!canNope) { // the window is over and its card is being executed
                 broadcast(Command.NOTIFY, "Too late...");
-                try {
-                    if (!Thread.currentThread().equals(delayedThread)) delayedAction.get();
-                } catch (InterruptedException | ExecutionException ignore) {}
                 delayedAction = null;
                 return;
             }
 
-            delayedAction.cancel(false);
+            delayedAction.cancel();
 
             if (doCard) doEffects();
             else broadcast(Command.NOTIFY, "The card has been cancelled");
@@ -223,13 +531,117 @@ public class Game {
         }
     }
 
+    /**
+     * Ends the time given to nope the delayed card and executes it.
+     * Ignored if the window has already been closed or cancelled.
+     *
+     * @param window The identifier of the window to be closed.
+     */
+    private void closeNopeWindow(int window) {
+        if (window != nopeWindow || delayedAction == null || !canNope) return;
+        record(Event.WINDOW, null, null, window);
+        Metrics.nopeWindowFired();
+        canNope = false;
+        doEffects();
+    }
+
+    /**
+     * Closes a nope window whose delay is over but whose event is still in the mailbox, before any other action.
+     * The outcome of an action then only depends on the journaled events, not on the time it is run at.
+     */
+    private void closeExpiredWindow() {
+        if (delayedAction != null && canNope && delayedAction.isExpired()) closeNopeWindow(nopeWindow);
+    }
+
+    /**
+     * Finds what the game waits for and from whom.
+     *
+     * @return The interaction waited for, or null if the game waits for nobody.
+     */
+    private Deadlines.Interaction pendingInteraction() {
+        if (currentClient == null || clientHandlers.size() < 2) return null;
+        if (delayedAction != null && canNope) return null; // the nope window closes on its own
+        if (favorTarget != null) return Deadlines.Interaction.DEMAND;
+        if (awaitUserInteraction) return Deadlines.Interaction.TARGET;
+        if (awaitPlacement()) return Deadlines.Interaction.PLACEMENT;
+        return Deadlines.Interaction.TURN;
+    }
+
+    /**
+     * Checks if the current player holds a defused kitten they have to put back in the deck.
+     *
+     * @return true while the placement is pending, false otherwise.
+     */
+    private boolean awaitPlacement() {
+        return currentClient != null && currentClient.getPlayer().hasCard(Card.EXPLODING_KITTEN);
+    }
+
+    /**
+     * Schedules the deadline of the interaction the game waits for once an event has changed it,
+     * an accepted action from anyone gives the player waited for a new deadline.
+     */
+    private void armDeadline() {
+        if (deadline == null && !deadlines.isEnabled()) return;
+        Deadlines.Interaction interaction = pendingInteraction();
+        Participant waitingFor = interaction == Deadlines.Interaction.DEMAND ? favorTarget : currentClient;
+        if (interaction == pending && waitingFor == pendingFrom && step == pendingStep) return;
+
+        if (deadline != null) deadline.cancel();
+        deadline = null;
+        pending = interaction;
+        pendingFrom = waitingFor;
+        pendingStep = step;
+        if (interaction == null || deadlines.get(interaction) <= 0) return;
+
+        int id = ++deadlineId;
+        deadline = scheduler.schedule(() -> execute(() -> expireDeadline(id)), deadlines.get(interaction), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Acts for the player who did not answer in time: draws a card for them, picks a random target,
+     * gives a random card or places the kitten at a random position. The choice is journaled as if they had made it.
+     *
+     * @param id The identifier of the deadline, ignored if it has been replaced in the meantime.
+     */
+    private void expireDeadline(int id) {
+        if (id != deadlineId || deadline == null) return;
+        deadline = null;
+        pendingStep = -1; // a new deadline even if the action is refused
+        Participant late = pendingFrom;
+        if (!clientHandlers.contains(late)) return;
+        Metrics.deadlineExpired(pending);
+        ThreadLocalRandom chance = ThreadLocalRandom.current(); // not the seeded random, the choice is journaled
+
+        String name = late.getPlayer().getName();
+        switch (pending) {
+            case TURN:
+                broadcast(Command.NOTIFY, name + " took too long, a card is drawn for them");
+                drawCard(late);
+                break;
+            case TARGET:
+                List<Participant> targets = clientHandlers.stream().filter(clientHandler -> clientHandler != late).collect(Collectors.toList());
+                broadcast(Command.NOTIFY, name + " took too long, the target is chosen for them");
+                chooseTarget(late, targets.get(chance.nextInt(targets.size())).getPlayer().getName());
+                break;
+            case DEMAND:
+                if (late.getPlayer().getHand().isEmpty()) break;
+                broadcast(Command.NOTIFY, name + " took too long, a random card is given for them");
+                giveCard(late, late.getPlayer().getHand().get(chance.nextInt(late.getPlayer().getHand().size())));
+                break;
+            case PLACEMENT:
+                broadcast(Command.NOTIFY, name + " took too long, the kitten is placed at random");
+                place(late, Card.EXPLODING_KITTEN, chance.nextInt(deck.size() + 1));
+                break;
+        }
+    }
+
     /**
      * Plays a card in the game.
      *
      * @param clientHandler The client handler making the move.
      * @param card The card to be played.
      */
-    private void playCard(ClientHandler clientHandler, Card card) {
+    private void playCard(Participant clientHandler, Card card) {
         if ( // make sure the player doesn't try to play a card when the last card ends their turn
                 delayedAction != null
                         && !actionStack.isEmpty()
@@ -238,7 +650,11 @@ public class Game {
                         && !skippedStack.isEmpty()
                 )
                 )
-        ) clientHandler.sendError(Error.E3);
+        ) {
+            clientHandler.sendError(Error.E3);
+            return;
+        }
+        record(Event.MOVE, clientHandler, card, 0);
 
         cancelDelayedTask(true);
 
@@ -258,16 +674,14 @@ public class Game {
     private void doEffects() {
         if (actionStack.isEmpty()) return;
         Card topCard = actionStack.peek();
-        ClientHandler playingClient = currentClient;
+        Participant playingClient = currentClient;
 
         // creates a delayed task to let users nope it if they want
         if (delayedAction == null && Card.DELAYED_CARD.contains(topCard)) {
-            delayedAction = DELAYED_EXECUTOR
-                    .schedule(() -> {
-                        delayedThread = Thread.currentThread();
-                        canNope = false;
-                        this.doEffects();
-                    }, NOPE_DELAY, TimeUnit.SECONDS);
+            int window = ++nopeWindow;
+            delayedAction = scheduler
+                    .schedule(() -> execute(() -> closeNopeWindow(window)), nopeDelay, TimeUnit.MILLISECONDS);
+            Metrics.nopeWindowScheduled();
             broadcast(
                     Command.NOTIFY,
                     playingClient.getPlayer().getName()
@@ -275,6 +689,7 @@ public class Game {
                             + topCard.name()
                             + " hurry if you want to nope it!"
             );
+            clientHandlers.forEach(clientHandler -> clientHandler.onNopeWindow(playingClient, topCard));
             return;
         }
 
@@ -303,19 +718,19 @@ public class Game {
                 playingClient.sendCommand(Command.EXPLODINGKITTEN);
                 return;
             case SHUFFLE: // shuffle the deck
-                deck.shuffle();
+                long shuffleSeed = random.nextLong();
+                record(Event.SHUFFLE, playingClient, null, shuffleSeed);
+                deck.shuffle(shuffleSeed);
                 actionStack.pop();
                 break;
             case SEE_THE_FUTURE: // send the 3 three cards of the deck to the current player
                 actionStack.pop();
-                playingClient.sendCommand(
-                        Command.NOTIFY,
-                        "Here are the 3 top cards on the deck: \\n"
-                                + deck.peekTopCards(3)
-                                .stream()
-                                .map(Card::name)
-                                .collect(Collectors.joining(", "))
-                );
+                StringBuilder future = new StringBuilder("Here are the 3 top cards on the deck: \\n");
+                for (int i = 0; i < Math.min(3, deck.size()); i++) {
+                    if (i > 0) future.append(", ");
+                    future.append(deck.peekTopCard(i).name());
+                }
+                playingClient.sendCommand(Command.NOTIFY, future.toString());
                 break;
             case FAVOR: // make another player give the current player a card
                 if (favorTarget != null) break;
@@ -347,7 +762,7 @@ public class Game {
                         return;
                     } else {
                         playingClient.sendCommand(Command.NOTIFY, "You drew an EXPLODING_KITTEN but you don't have a DEFUSE!");
-                        gameOver(playingClient);
+                        eliminate(playingClient);
                         actionStack.pop();
                     }
                 } else {
@@ -374,22 +789,104 @@ public class Game {
     }
 
     /**
-     * Method for handling the game over event.
+     * Method for handling the game over event, when a client leaves the game.
      *
      * @param clientHandler The client handler that triggered the game over event.
      */
-    public void gameOver(ClientHandler clientHandler) {
+    public void gameOver(Participant clientHandler) {
+        closeExpiredWindow();
+        if (!clientHandlers.contains(clientHandler)) return; // already out of the game
+        record(Event.LEAVE, clientHandler, null, 0);
+        eliminate(clientHandler);
+    }
+
+    /**
+     * Removes a player from the game, ending it if a single player is left.
+     *
+     * @param clientHandler The client handler that has lost.
+     */
+    private void eliminate(Participant clientHandler) {
+        if (!clientHandlers.contains(clientHandler)) return; // already out of the game
+
         broadcast(Command.NOTIFY, clientHandler.getPlayer().getName() + " has lost!");
 
+        int seat = clientHandlers.indexOf(clientHandler);
         clientHandlers.remove(clientHandler);
         clientHandler.sendCommand(Command.GAMEOVER);
         clientHandler.getPlayer().reset();
 
         if (clientHandlers.size() == 1) {
-            ClientHandler winner = clientHandlers.get(0);
+            Participant winner = clientHandlers.get(0);
             winner.sendCommand(Command.NOTIFY, "You won the game well done");
             winner.sendCommand(Command.GAMEOVER);
-            ServerGame.EndGame();
+            record(Event.END, winner, null, 0);
+            onGameEnd.run();
+            return;
+        }
+
+        // the current action has to finish before the turn is given away
+        if (clientHandler.equals(currentClient)) execute(() -> passTurn(clientHandler, seat));
+    }
+
+    /**
+     * Gives the turn of a player that has lost to the player seated after them, dropping what was left of the turn.
+     *
+     * @param loser The client handler that has lost during their turn.
+     * @param seat The seat the loser had.
+     */
+    private void passTurn(Participant loser, int seat) {
+        if (!loser.equals(currentClient) || clientHandlers.size() < 2) return;
+        record(Event.PASS, loser, null, seat);
+
+        if (delayedAction != null) delayedAction.cancel();
+        delayedAction = null;
+        actionStack.clear();
+        skippedStack.clear();
+        nopedCard = null;
+        favorTarget = null;
+        awaitUserInteraction = false;
+
+        currentClient = clientHandlers.get(seat % clientHandlers.size());
+        previousClient = currentClient;
+        actionStack.push(Card.DRAW);
+        sendAllUpdates();
+        broadcast(Command.NEXT, loser.getPlayer().getName(), currentClient.getPlayer().getName());
+    }
+
+    /**
+     * Seats a participant in place of another one, keeping the player and the turn of the seat.
+     * The new participant is sent the full state and what the game is waiting for from it.
+     *
+     * @param seat The participant leaving the seat.
+     * @param replacement The participant taking the seat, already in place of the other one among the participants.
+     */
+    public void takeOver(Participant seat, Participant replacement) {
+        int index = seats.indexOf(seat);
+        if (index < 0) return;
+        seats.set(index, replacement);
+        if (seat.equals(currentClient)) currentClient = replacement;
+        if (seat.equals(previousClient)) previousClient = replacement;
+        if (seat.equals(favorTarget)) favorTarget = replacement;
+        if (!clientHandlers.contains(replacement) || currentClient == null) return;
+
+        replacement.sendState(lastCard, deck.size(), true);
+        if (replacement.equals(favorTarget)) {
+            replacement.sendCommand(Command.DEMAND, currentClient.getPlayer().getName());
+        } else if (replacement.equals(currentClient) && awaitUserInteraction && favorTarget == null) {
+            String name = replacement.getPlayer().getName();
+            replacement.sendCommand(
+                    Command.HAND,
+                    clientHandlers
+                            .stream()
+                            .map(clientHandler -> clientHandler.getPlayer().getName())
+                            .filter(player -> !player.equals(name))
+                            .collect(Collectors.joining(", "))
+            );
+        } else if (replacement.equals(currentClient) && replacement.getPlayer().hasCard(Card.EXPLODING_KITTEN)) {
+            replacement.sendCommand(Command.EXPLODINGKITTEN);
+        } else {
+            Participant previous = previousClient != null ? previousClient : currentClient;
+            replacement.sendCommand(Command.NEXT, previous.getPlayer().getName(), currentClient.getPlayer().getName());
         }
     }
 
@@ -399,7 +896,8 @@ public class Game {
      * @param clientHandler The client handler making the choice.
      * @param target        The target player's name.
      */
-    public void chooseTarget(ClientHandler clientHandler, String target) {
+    public void chooseTarget(Participant clientHandler, String target) {
+        closeExpiredWindow();
         if ( // check for target empty, correct action, and different player
                 favorTarget != null
                         || !actionStack.peek().equals(Card.FAVOR)
@@ -411,7 +909,7 @@ public class Game {
         }
 
         // get targeted client if any
-        ClientHandler targetedClient = clientHandlers
+        Participant targetedClient = clientHandlers
                 .stream()
                 .filter(client -> client.getPlayer().getName().equals(target))
                 .findFirst()
@@ -420,6 +918,7 @@ public class Game {
             clientHandler.sendError(Error.E4);
             return;
         }
+        record(Event.TARGET, clientHandler, null, seats.indexOf(targetedClient));
 
         if (targetedClient.getPlayer().getHand().isEmpty()) { // when the target is out of cards
             clientHandler.sendCommand(Command.NOTIFY, target + " is out of cards");
@@ -441,7 +940,8 @@ public class Game {
      * @param clientHandler The client handler initiating the card transfer.
      * @param card The card to be given.
      */
-    public void giveCard(ClientHandler clientHandler, Card card) {
+    public void giveCard(Participant clientHandler, Card card) {
+        closeExpiredWindow();
         if ( // check for target empty, correct action, and if he has card
                 (!actionStack.isEmpty() && !actionStack.peek().equals(Card.FAVOR))
                         || !clientHandler.equals(favorTarget)
@@ -450,9 +950,10 @@ public class Game {
             clientHandler.sendError(Error.E3);
             return;
         }
+        record(Event.GIVE, clientHandler, card, 0);
 
-        favorTarget.getPlayer().getHand().remove(card);
-        currentClient.getPlayer().getHand().add(card);
+        favorTarget.getPlayer().playCard(card);
+        currentClient.getPlayer().addCard(card);
 
         broadcast(
                 Command.NOTIFY,
@@ -478,6 +979,8 @@ public class Game {
         previousClient = currentClient;
         currentClient = clientHandlers.get((clientHandlers.indexOf(currentClient) + 1) % clientHandlers.size());
 
+        record(Event.TURN, currentClient, null, 0);
+
         actionStack.push(Card.DRAW);
         sendAllUpdates();
         broadcast(Command.NEXT, previousClient.getPlayer().getName(), currentClient.getPlayer().getName());
@@ -488,10 +991,18 @@ public class Game {
      *
      * @param clientHandler The client handler for whom to draw the card.
      */
-    public void drawCard(ClientHandler clientHandler) {
-        if (!currentClient.equals(clientHandler)) {
+    public void drawCard(Participant clientHandler) {
+        closeExpiredWindow();
+        // a player that has just lost keeps the turn until it is passed on, but cannot draw anymore
+        if (!currentClient.equals(clientHandler) || !clientHandlers.contains(clientHandler)) {
             clientHandler.sendError(Error.E6);
+            return;
         }
+        if (deck.isEmpty() || awaitPlacement()) { // nothing to draw, or a kitten to put back first
+            clientHandler.sendError(Error.E3);
+            return;
+        }
+        record(Event.DRAW, clientHandler, null, 0);
         discardNoped();
 
         // Draw a card
@@ -521,14 +1032,17 @@ public class Game {
      * @param card The card to be placed.
      * @param index The index at which to place the card in the deck.
      */
-    public void place(ClientHandler clientHandler, Card card, int index) {
+    public void place(Participant clientHandler, Card card, int index) {
+        closeExpiredWindow();
         if (!currentClient.equals(clientHandler)
                 || !clientHandler.getPlayer().hasCard(card)
                 || index < 0
-                || index >= deck.size()
+                || index > deck.size()
         ) {
             clientHandler.sendError(Error.E3);
+            return;
         }
+        record(Event.PLACE, clientHandler, card, index);
         clientHandler.getPlayer().playCard(card);
 
         deck.insertCardAtPosition(card, index);
@@ -537,4 +1051,25 @@ public class Game {
         if (actionStack.isEmpty()) nextTurn();
         clientHandler.sendCommand(Command.EXECUTEDMOVE); // give client feedback
     }
-}
\ No newline at end of file
+
+    /**
+     * Describes the state of the game: the seed, the deck, the turn, the stacks and every hand.
+     *
+     * @return The description of the game.
+     */
+    @Override
+    public String toString() {
+        StringBuilder state = new StringBuilder("Game " + seed)
+                .append("\n  deck: ").append(deck.size()).append(" cards")
+                .append("\n  current: ").append(currentClient == null ? "none" : currentClient.getPlayer().getName())
+                .append("\n  actions: ").append(actionStack).append(" skipped: ").append(skippedStack)
+                .append("\n  nope window: ").append(canNope && delayedAction != null ? "open" : "closed");
+        for (Participant clientHandler : seats) {
+            Player player = clientHandler.getPlayer();
+            state.append("\n  ").append(player.getName())
+                    .append(clientHandlers.contains(clientHandler) ? ": " : " (out): ")
+                    .append(player.getHand());
+        }
+        return state.toString();
+    }
+}
@@ -0,0 +1,52 @@
+package logic;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class GameLoop implements Executor {
+
+    // Constants
+    public static final int MAX_BATCH = 64;
+
+    private final Executor executor;
+    private final Queue<Runnable> mailbox;
+    private final AtomicBoolean scheduled;
+
+    public GameLoop(Executor executor) {
+        this.executor = executor;
+        this.mailbox = new ConcurrentLinkedQueue<>();
+        this.scheduled = new AtomicBoolean(false);
+    }
+
+    /**
+     * Posts an event to the mailbox of the game, events are run one at a time in the order they were posted.
+     * Any thread can post, the loop is woken up on the executor if it is idle.
+     *
+     * @param event The event to be run on the loop.
+     */
+    @Override
+    public void execute(Runnable event) {
+        mailbox.add(event);
+        if (scheduled.compareAndSet(false, true)) executor.execute(this::drain);
+    }
+
+    /**
+     * Runs a batch of pending events then gives the executor back to the other games,
+     * rescheduling itself if events are still waiting.
+     */
+    private void drain() {
+        Runnable event;
+        for (int i = 0; i < MAX_BATCH && (event = mailbox.poll()) != null; i++) {
+            try {
+                event.run();
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+
+        scheduled.set(false);
+        if (!mailbox.isEmpty() && scheduled.compareAndSet(false, true)) executor.execute(this::drain);
+    }
+}
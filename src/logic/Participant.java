@@ -0,0 +1,74 @@
+package logic;
+
+import logic.utils.Card;
+import logic.utils.players.Player;
+import networking.protocol.Command;
+import networking.protocol.Error;
+import networking.protocol.Message;
+
+/**
+ * Seat of a game, either a connected client or an in-memory agent.
+ * The game talks to its participants with the same commands it would send over the network.
+ */
+public interface Participant {
+
+    /**
+     * Retrieves the player seated, holding its hand.
+     *
+     * @return The player.
+     */
+    Player getPlayer();
+
+    /**
+     * Retrieves the token that lets the client of the seat take it back, kept in the snapshots of the game.
+     * The default has none, in-memory agents are never restored.
+     *
+     * @return The session token, or null if there is none.
+     */
+    default String getToken() {
+        return null;
+    }
+
+    /**
+     * Sends a command to the participant.
+     *
+     * @param command The command to be sent.
+     * @param args Additional arguments for the command, if any.
+     */
+    void sendCommand(Command command, String... args);
+
+    /**
+     * Sends a message broadcast to several participants, connections write the bytes it has encoded once for all.
+     * The default sends its command.
+     *
+     * @param message The message to be sent.
+     */
+    default void send(Message message) {
+        sendCommand(message.getCommand(), message.getArgs());
+    }
+
+    /**
+     * Sends an error to the participant.
+     *
+     * @param error The error to be sent.
+     */
+    void sendError(Error error);
+
+    /**
+     * Sends the state of the player to the participant.
+     *
+     * @param topCard The last card played, if any.
+     * @param pileSize The number of cards left in the deck.
+     * @param full Flag indicating whether the full hand has to be sent.
+     */
+    void sendState(Card topCard, int pileSize, boolean full);
+
+    /**
+     * Tells the participant a card can be noped for a while, the default does nothing
+     * as clients are already notified by a "Notify" command.
+     *
+     * @param player The participant that played the card.
+     * @param card The card that can be noped.
+     */
+    default void onNopeWindow(Participant player, Card card) {}
+}
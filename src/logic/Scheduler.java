@@ -0,0 +1,37 @@
+package logic;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs tasks after a delay, used for the nope windows of the games.
+ */
+public interface Scheduler {
+
+    /**
+     * Schedules a task.
+     *
+     * @param task The task to be run.
+     * @param delay The delay before running the task.
+     * @param unit The unit of the delay.
+     * @return The handle of the scheduled task.
+     */
+    Timeout schedule(Runnable task, long delay, TimeUnit unit);
+
+    /**
+     * Handle of a scheduled task.
+     */
+    interface Timeout {
+
+        /**
+         * Cancels the task if it has not run yet.
+         */
+        void cancel();
+
+        /**
+         * Checks if the delay of the task is over.
+         *
+         * @return true if the task is running or has run, false otherwise.
+         */
+        boolean isExpired();
+    }
+}
@@ -0,0 +1,208 @@
+package logic;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hashed timing wheel, the scheduler of the nope windows and deadlines of every game of the server.
+ * Scheduling and cancelling only add the task to a lock-free queue, a single thread moves the tasks into the
+ * buckets of the wheel and runs the expired ones once per tick. The tasks are run on that thread, they are
+ * expected to hand the work to the loop of their game as the nope windows do.
+ * A task runs at most one tick late.
+ */
+public class TimingWheel implements Scheduler {
+
+    public static final long DEFAULT_TICK = 10; // milliseconds
+    public static final int DEFAULT_WHEEL_SIZE = 512;
+    // most tasks moved into the wheel per tick, the others wait for the next tick
+    public static final int MAX_TRANSFERS = 100_000;
+
+    private static final int WAITING = 0;
+    private static final int CANCELLED = 1;
+    private static final int EXPIRED = 2;
+
+    private final long tick;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final Queue<Task> scheduled;
+    private final Queue<Task> cancelled;
+    private final long start;
+    private long ticks;
+
+    public TimingWheel() {
+        this(DEFAULT_TICK, TimeUnit.MILLISECONDS, DEFAULT_WHEEL_SIZE, "timing-wheel");
+    }
+
+    /**
+     * @param tick The duration of a tick, the precision of the deadlines.
+     * @param unit The unit of the tick.
+     * @param wheelSize The number of buckets, rounded up to a power of two.
+     * @param name The name of the thread of the wheel.
+     */
+    public TimingWheel(long tick, TimeUnit unit, int wheelSize, String name) {
+        this.tick = Math.max(1, unit.toNanos(tick));
+        int size = Integer.highestOneBit(Math.max(1, wheelSize - 1)) << 1;
+        this.wheel = new Bucket[size];
+        for (int i = 0; i < size; i++) wheel[i] = new Bucket();
+        this.mask = size - 1;
+        this.scheduled = new ConcurrentLinkedQueue<>();
+        this.cancelled = new ConcurrentLinkedQueue<>();
+        this.start = System.nanoTime();
+
+        Thread thread = new Thread(this::run, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        Task added = new Task(task, System.nanoTime() - start + Math.max(0, unit.toNanos(delay)));
+        scheduled.add(added);
+        return added;
+    }
+
+    /**
+     * Retrieves the approximate number of tasks waiting in the wheel or to be moved into it,
+     * cancelled ones not yet removed included.
+     *
+     * @return The number of tasks.
+     */
+    public int getPendingCount() {
+        int count = scheduled.size();
+        for (Bucket bucket : wheel) count += bucket.size;
+        return count;
+    }
+
+    /**
+     * Runs the wheel, one tick at a time.
+     */
+    private void run() {
+        while (true) {
+            long deadline = (ticks + 1) * tick;
+            long sleep;
+            while ((sleep = deadline - (System.nanoTime() - start)) > 0) LockSupport.parkNanos(sleep);
+
+            removeCancelled();
+            transferScheduled();
+            wheel[(int) (ticks & mask)].expire(deadline);
+            ticks++;
+        }
+    }
+
+    /**
+     * Moves the newly scheduled tasks into the bucket of their deadline.
+     */
+    private void transferScheduled() {
+        Task task;
+        for (int i = 0; i < MAX_TRANSFERS && (task = scheduled.poll()) != null; i++) {
+            if (task.state.get() != WAITING) continue;
+
+            long expiryTick = Math.max(task.deadline / tick, ticks); // late tasks run on the current tick
+            task.rounds = (expiryTick - ticks) / wheel.length;
+            wheel[(int) (expiryTick & mask)].add(task);
+        }
+    }
+
+    /**
+     * Unlinks the cancelled tasks from their bucket so they do not hold their game until their deadline.
+     */
+    private void removeCancelled() {
+        Task task;
+        while ((task = cancelled.poll()) != null) {
+            if (task.bucket != null) task.bucket.remove(task);
+        }
+    }
+
+    private final class Task implements Timeout {
+
+        private final Runnable task;
+        private final long deadline; // nanoseconds since the start of the wheel
+        private final AtomicInteger state;
+        private long rounds;
+
+        // only used by the thread of the wheel
+        private Bucket bucket;
+        private Task previous;
+        private Task next;
+
+        private Task(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+            this.state = new AtomicInteger(WAITING);
+        }
+
+        @Override
+        public void cancel() {
+            if (state.compareAndSet(WAITING, CANCELLED)) cancelled.add(this);
+        }
+
+        @Override
+        public boolean isExpired() {
+            return state.get() == EXPIRED || (state.get() == WAITING && System.nanoTime() - start >= deadline);
+        }
+
+        private void expire() {
+            if (!state.compareAndSet(WAITING, EXPIRED)) return;
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Doubly linked list of the tasks expiring on the same tick of a round, only used by the thread of the wheel.
+     */
+    private static final class Bucket {
+
+        private Task head;
+        private Task tail;
+        private int size;
+
+        private void add(Task task) {
+            task.bucket = this;
+            task.previous = tail;
+            task.next = null;
+            if (tail == null) head = task;
+            else tail.next = task;
+            tail = task;
+            size++;
+        }
+
+        private void remove(Task task) {
+            if (task.previous == null) head = task.next;
+            else task.previous.next = task.next;
+            if (task.next == null) tail = task.previous;
+            else task.next.previous = task.previous;
+            task.bucket = null;
+            task.previous = null;
+            task.next = null;
+            size--;
+        }
+
+        /**
+         * Runs the tasks of the bucket whose deadline is over, the others wait for another round.
+         *
+         * @param deadline The end of the current tick, in nanoseconds since the start of the wheel.
+         */
+        private void expire(long deadline) {
+            Task task = head;
+            while (task != null) {
+                Task next = task.next;
+                if (task.rounds <= 0 && task.deadline <= deadline) {
+                    remove(task);
+                    task.expire();
+                } else if (task.state.get() == CANCELLED) {
+                    remove(task);
+                } else {
+                    task.rounds--;
+                }
+                task = next;
+            }
+        }
+    }
+}
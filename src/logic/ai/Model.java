@@ -0,0 +1,348 @@
+package logic.ai;
+
+import logic.Game;
+import logic.utils.Card;
+import logic.utils.Deck;
+
+import java.util.SplittableRandom;
+
+/**
+ * Compact copy of the rules played by the search, on a fully known deal sampled from an {@link Observation}.
+ * Seat 0 is the searching player, the others follow in turn order.
+ * Actions are encoded as the phase in the high bits and a value in the low bits:
+ * a card ordinal to play or give, {@link Card#DRAW} to draw, a seat to target or a depth to place a kitten at.
+ */
+class Model {
+
+    // Phases
+    static final int TURN = 0;
+    static final int TARGET = 1;
+    static final int GIVE = 2;
+    static final int PLACE = 3;
+
+    static final int ME = 0;
+    static final int MAX_ACTIONS = 4 << 6;
+
+    private static final Card[] CARDS = Card.values();
+    private static final int KITTEN = Card.EXPLODING_KITTEN.ordinal();
+    private static final int DEFUSE = Card.DEFUSE.ordinal();
+    private static final int DRAW = Card.DRAW.ordinal();
+    private static final int[] ACTION_CARDS = {
+            Card.ATTACK.ordinal(), Card.SKIP.ordinal(), Card.FAVOR.ordinal(), Card.SHUFFLE.ordinal(), Card.SEE_THE_FUTURE.ordinal()
+    };
+    private static final int[] ESCAPE_CARDS = {Card.SKIP.ordinal(), Card.ATTACK.ordinal(), Card.SHUFFLE.ordinal()};
+    private static final int MAX_ROLLOUT_STEPS = 2_000;
+    private static final int MIN_HAND_GUESS = 3;
+
+    private final int players;
+    private final int[][] hands;
+    private final int[] handSizes;
+    private final boolean[] alive;
+    private final int[] seen; // pile size when each player last looked at the top cards
+    private byte[] pile; // top at pileSize - 1
+    private int pileSize;
+    private int aliveCount;
+    private int current;
+    private int draws;
+    private int phase;
+    private int actor;
+    private int favorFrom;
+
+    private Model(int players) {
+        this.players = players;
+        this.hands = new int[players][CARDS.length];
+        this.handSizes = new int[players];
+        this.alive = new boolean[players];
+        this.seen = new int[players];
+        this.aliveCount = players;
+        for (int seat = 0; seat < players; seat++) {
+            alive[seat] = true;
+            seen[seat] = -1;
+        }
+    }
+
+    static int encode(int phase, int value) {
+        return phase << 6 | value;
+    }
+
+    static int phaseOf(int action) {
+        return action >>> 6;
+    }
+
+    static int valueOf(int action) {
+        return action & 63;
+    }
+
+    /**
+     * Samples a deal matching what the player knows: the unseen cards are spread between the deck and the other hands,
+     * the deck holding one kitten per opponent.
+     *
+     * @param observation What the player knows.
+     * @param phase The decision the player has to make.
+     * @param random The source of the sample.
+     * @return A deal with the player to decide.
+     */
+    static Model sample(Observation observation, int phase, SplittableRandom random) {
+        int opponents = observation.getOpponents().size();
+        Model model = new Model(opponents + 1);
+
+        // cards nobody has seen yet, the played ones are not known so they are counted as unseen
+        int[] unseen = new int[CARDS.length];
+        int unseenSize = 0;
+        for (Card card : CARDS) {
+            if (card == Card.EXPLODING_KITTEN || card == Card.DRAW) continue;
+            int copies = card == Card.DEFUSE ? Game.DEFUSES_COUNT : Deck.initialCount(card);
+            unseen[card.ordinal()] = Math.max(0, copies - observation.count(card));
+            unseenSize += unseen[card.ordinal()];
+            for (int i = 0; i < observation.count(card); i++) model.give(ME, card.ordinal());
+        }
+
+        // deck: known cards stay where they are, kittens are spread over the unknown places
+        int size = observation.getPileSize();
+        model.pile = new byte[size + opponents + 8];
+        model.pileSize = size;
+        int kittens = opponents;
+        int unknown = 0;
+        for (int depth = 0; depth < size; depth++) {
+            Card known = observation.getKnown(depth);
+            if (known == null) unknown++;
+            else {
+                model.pile[size - 1 - depth] = (byte) known.ordinal();
+                if (known == Card.EXPLODING_KITTEN) kittens--;
+                else if (unseen[known.ordinal()] > 0) {
+                    unseen[known.ordinal()]--;
+                    unseenSize--;
+                }
+            }
+        }
+        for (int depth = 0; depth < size; depth++) {
+            if (observation.getKnown(depth) != null) continue;
+            int card;
+            if (kittens > 0 && random.nextInt(unknown) < kittens) {
+                card = KITTEN;
+                kittens--;
+            } else {
+                card = draw(unseen, unseenSize--, random);
+            }
+            unknown--;
+            model.pile[size - 1 - depth] = (byte) card;
+        }
+
+        // other hands, guessed as big as the player's own
+        int handSize = Math.max(observation.getHandSize(), MIN_HAND_GUESS);
+        for (int seat = 1; seat <= opponents; seat++) {
+            for (int i = 0; i < handSize; i++) model.give(seat, draw(unseen, unseenSize--, random));
+        }
+
+        model.current = phase == GIVE ? 1 : ME;
+        model.draws = 1;
+        model.phase = phase;
+        model.actor = ME;
+        model.favorFrom = model.current;
+        return model;
+    }
+
+    /**
+     * Takes a random card out of a pool, a cat if the pool is empty as the played cards are never known.
+     */
+    private static int draw(int[] pool, int poolSize, SplittableRandom random) {
+        if (poolSize <= 0) return Card.BEARD_CAT.ordinal();
+        int pick = random.nextInt(poolSize);
+        for (int i = 0; i < pool.length; i++) {
+            if (pick < pool[i]) {
+                pool[i]--;
+                return i;
+            }
+            pick -= pool[i];
+        }
+        throw new IllegalStateException("pool size does not match its counts");
+    }
+
+    private void give(int seat, int card) {
+        hands[seat][card]++;
+        handSizes[seat]++;
+    }
+
+    private void take(int seat, int card) {
+        hands[seat][card]--;
+        handSizes[seat]--;
+    }
+
+    boolean isOver() {
+        return aliveCount <= 1;
+    }
+
+    /**
+     * Retrieves the player that has to decide.
+     */
+    int getActor() {
+        return actor;
+    }
+
+    /**
+     * Scores the end of a game for a player, a game cut short is shared between the players left.
+     *
+     * @param seat The player.
+     * @return 1 for a win, 0 for a loss.
+     */
+    double reward(int seat) {
+        return alive[seat] ? 1.0 / aliveCount : 0;
+    }
+
+    /**
+     * Lists the actions of the player that has to decide.
+     *
+     * @param actions Filled with the encoded actions.
+     * @return The number of actions.
+     */
+    int legalActions(int[] actions) {
+        int count = 0;
+        switch (phase) {
+            case TURN:
+                actions[count++] = encode(TURN, DRAW);
+                for (int card : ACTION_CARDS) if (hands[actor][card] > 0) actions[count++] = encode(TURN, card);
+                break;
+            case TARGET:
+                for (int seat = 0; seat < players; seat++) {
+                    if (seat != actor && alive[seat] && handSizes[seat] > 0) actions[count++] = encode(TARGET, seat);
+                }
+                break;
+            case GIVE:
+                for (int card = 0; card < CARDS.length; card++) if (hands[actor][card] > 0) actions[count++] = encode(GIVE, card);
+                break;
+            case PLACE:
+                int last = -1;
+                for (int depth : new int[]{0, 1, 2, 3, pileSize / 2, pileSize}) {
+                    if (depth > pileSize || depth <= last) continue;
+                    actions[count++] = encode(PLACE, depth);
+                    last = depth;
+                }
+                break;
+        }
+        return count;
+    }
+
+    /**
+     * Applies an action of the player that has to decide.
+     *
+     * @param action The encoded action, one of the legal ones.
+     * @param random The source of the shuffles.
+     */
+    void apply(int action, SplittableRandom random) {
+        int value = valueOf(action);
+        switch (phaseOf(action)) {
+            case TURN:
+                if (value == DRAW) {
+                    drawCard();
+                    return;
+                }
+                take(current, value);
+                if (value == Card.ATTACK.ordinal()) nextTurn(draws > 1 ? draws + 2 : 2);
+                else if (value == Card.SKIP.ordinal()) endDraw();
+                else if (value == Card.SHUFFLE.ordinal()) shuffle(random);
+                else if (value == Card.SEE_THE_FUTURE.ordinal()) seen[current] = pileSize;
+                else if (value == Card.FAVOR.ordinal() && hasTarget()) phase = TARGET;
+                return;
+            case TARGET:
+                favorFrom = actor;
+                actor = value;
+                phase = GIVE;
+                return;
+            case GIVE:
+                take(actor, value);
+                give(favorFrom, value);
+                phase = TURN;
+                actor = current;
+                return;
+            case PLACE:
+                int index = pileSize - value;
+                System.arraycopy(pile, index, pile, index + 1, pileSize - index);
+                pile[index] = (byte) KITTEN;
+                pileSize++;
+                phase = TURN;
+                endDraw();
+        }
+    }
+
+    private boolean hasTarget() {
+        for (int seat = 0; seat < players; seat++) {
+            if (seat != current && alive[seat] && handSizes[seat] > 0) return true;
+        }
+        return false;
+    }
+
+    private void drawCard() {
+        if (pileSize == 0) { // only happens on a bad sample, nobody can lose anymore
+            nextTurn(1);
+            return;
+        }
+        int card = pile[--pileSize];
+        if (card != KITTEN) {
+            give(current, card);
+            endDraw();
+            return;
+        }
+        if (hands[current][DEFUSE] > 0) {
+            take(current, DEFUSE);
+            phase = PLACE;
+            return;
+        }
+
+        alive[current] = false;
+        aliveCount--;
+        if (!isOver()) nextTurn(1);
+    }
+
+    private void shuffle(SplittableRandom random) {
+        for (int i = pileSize - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            byte card = pile[i];
+            pile[i] = pile[j];
+            pile[j] = card;
+        }
+        for (int seat = 0; seat < players; seat++) seen[seat] = -1;
+    }
+
+    private void endDraw() {
+        if (--draws <= 0) nextTurn(1);
+        else actor = current;
+    }
+
+    private void nextTurn(int draws) {
+        do current = (current + 1) % players; while (!alive[current]);
+        this.draws = draws;
+        phase = TURN;
+        actor = current;
+    }
+
+    /**
+     * Plays the game to its end with a simple policy: escape a kitten seen on top, sometimes play an action card,
+     * otherwise draw.
+     *
+     * @param random The source of the choices.
+     */
+    void rollout(SplittableRandom random) {
+        int[] actions = new int[MAX_ACTIONS];
+        for (int step = 0; step < MAX_ROLLOUT_STEPS && !isOver(); step++) {
+            apply(policy(actions, random), random);
+        }
+    }
+
+    private int policy(int[] actions, SplittableRandom random) {
+        if (phase == TURN) {
+            int[] hand = hands[actor];
+            if (seen[actor] == pileSize && pileSize > 0 && pile[pileSize - 1] == KITTEN) {
+                for (int card : ESCAPE_CARDS) if (hand[card] > 0) return encode(TURN, card);
+            }
+            if (random.nextInt(4) > 0) return encode(TURN, DRAW);
+        }
+        if (phase == GIVE && handSizes[actor] > hands[actor][DEFUSE]) { // keep the defuses
+            int card;
+            do card = random.nextInt(CARDS.length); while (hands[actor][card] == 0 || card == DEFUSE);
+            return encode(GIVE, card);
+        }
+
+        int count = legalActions(actions);
+        return actions[random.nextInt(count)];
+    }
+}
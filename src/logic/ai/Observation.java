@@ -0,0 +1,59 @@
+package logic.ai;
+
+import logic.utils.Card;
+import logic.utils.Hand;
+
+import java.util.List;
+
+/**
+ * What a client knows of the game when it has to decide, the hidden cards are sampled from it by the search.
+ */
+public class Observation {
+
+    private final int[] hand;
+    private final int handSize;
+    private final int pileSize;
+    private final List<String> opponents;
+    private final Card[] knownTop;
+
+    /**
+     * @param hand The cards of the player.
+     * @param pileSize The number of cards left in the deck.
+     * @param opponents The names of the players still in the game, in turn order starting after the player.
+     * @param knownTop The cards known from the top of the deck, null where unknown.
+     */
+    public Observation(Hand hand, int pileSize, List<String> opponents, Card[] knownTop) {
+        this.hand = new int[Card.values().length];
+        for (Card card : hand) this.hand[card.ordinal()]++;
+        this.handSize = hand.size();
+        this.pileSize = pileSize;
+        this.opponents = List.copyOf(opponents);
+        this.knownTop = knownTop.clone();
+    }
+
+    public int count(Card card) {
+        return hand[card.ordinal()];
+    }
+
+    public int getHandSize() {
+        return handSize;
+    }
+
+    public int getPileSize() {
+        return pileSize;
+    }
+
+    public List<String> getOpponents() {
+        return opponents;
+    }
+
+    /**
+     * Retrieves a card known to be in the deck.
+     *
+     * @param depth The position from the top, 0 being the top card.
+     * @return The card, or null if it is unknown.
+     */
+    public Card getKnown(int depth) {
+        return depth < knownTop.length ? knownTop[depth] : null;
+    }
+}
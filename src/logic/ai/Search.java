@@ -0,0 +1,199 @@
+package logic.ai;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Information set Monte-Carlo tree search: every iteration samples a deal matching the observation,
+ * walks a tree of actions shared by all the deals and finishes the game with random moves.
+ * Each worker of the pool grows its own tree until the time budget is spent, the root visits are then summed.
+ */
+public class Search {
+
+    // Constants
+    public static final double EXPLORATION = 0.7;
+
+    private static final ForkJoinPool POOL = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+    private final Observation observation;
+    private final int phase;
+    private final long deadline;
+
+    private Search(Observation observation, int phase, long budget) {
+        this.observation = observation;
+        this.phase = phase;
+        this.deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(budget);
+    }
+
+    /**
+     * Picks the card to play, or null to draw.
+     *
+     * @param observation What the player knows.
+     * @param budget The time to think, in milliseconds.
+     * @return The card ordinal to play, or {@link logic.utils.Card#DRAW} to draw.
+     */
+    public static int takeTurn(Observation observation, long budget) {
+        return new Search(observation, Model.TURN, budget).run();
+    }
+
+    /**
+     * Picks the player to ask a favor.
+     *
+     * @param observation What the player knows.
+     * @param budget The time to think, in milliseconds.
+     * @return The index of the target in the opponents of the observation.
+     */
+    public static int chooseTarget(Observation observation, long budget) {
+        return new Search(observation, Model.TARGET, budget).run() - 1; // seat 0 is the player
+    }
+
+    /**
+     * Picks the card given for a favor.
+     *
+     * @param observation What the player knows.
+     * @param budget The time to think, in milliseconds.
+     * @return The card ordinal to give.
+     */
+    public static int chooseCard(Observation observation, long budget) {
+        return new Search(observation, Model.GIVE, budget).run();
+    }
+
+    /**
+     * Picks where to put a defused kitten back.
+     *
+     * @param observation What the player knows, the pile without the kitten.
+     * @param budget The time to think, in milliseconds.
+     * @return The depth from the top of the deck.
+     */
+    public static int choosePosition(Observation observation, long budget) {
+        return new Search(observation, Model.PLACE, budget).run();
+    }
+
+    /**
+     * Grows a tree per worker and picks the most visited action over all of them.
+     *
+     * @return The value of the action.
+     */
+    private int run() {
+        List<Worker> workers = new ArrayList<>();
+        for (int i = 0; i < POOL.getParallelism(); i++) workers.add(new Worker(ThreadLocalRandom.current().nextLong()));
+        long[] visits = new long[Model.MAX_ACTIONS];
+        POOL.invoke(new RecursiveTask<Void>() {
+            @Override
+            protected Void compute() {
+                invokeAll(workers);
+                return null;
+            }
+        });
+        for (Worker worker : workers) {
+            for (Node child : worker.join().children) visits[child.action] += child.visits;
+        }
+
+        int best = -1;
+        for (int action = 0; action < visits.length; action++) {
+            if (visits[action] > 0 && (best < 0 || visits[action] > visits[best])) best = action;
+        }
+        if (best < 0) { // no time to search, take the first legal action
+            int[] actions = new int[Model.MAX_ACTIONS];
+            Model.sample(observation, phase, new SplittableRandom()).legalActions(actions);
+            best = actions[0];
+        }
+        return Model.valueOf(best);
+    }
+
+    /**
+     * Node of the tree, reached by an action of a player. Its statistics are from the point of view of that player.
+     */
+    private static class Node {
+
+        private final int action;
+        private final int player;
+        private final Node parent;
+        private final List<Node> children;
+        private int visits;
+        private int available;
+        private double reward;
+
+        private Node(int action, int player, Node parent) {
+            this.action = action;
+            this.player = player;
+            this.parent = parent;
+            this.children = new ArrayList<>(4);
+        }
+
+        private Node child(int action) {
+            for (Node child : children) if (child.action == action) return child;
+            return null;
+        }
+
+        private double score() {
+            return reward / visits + EXPLORATION * Math.sqrt(Math.log(available) / visits);
+        }
+    }
+
+    /**
+     * Runs iterations on its own tree until the deadline.
+     */
+    private class Worker extends RecursiveTask<Node> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final SplittableRandom random;
+
+        private Worker(long seed) {
+            this.random = new SplittableRandom(seed);
+        }
+
+        @Override
+        protected Node compute() {
+            Node root = new Node(-1, -1, null);
+            int[] actions = new int[Model.MAX_ACTIONS];
+            do iterate(root, actions); while (System.nanoTime() < deadline);
+            return root;
+        }
+
+        private void iterate(Node root, int[] actions) {
+            Model model = Model.sample(observation, phase, random);
+            Node node = root;
+
+            // select among the actions legal in this deal, expanding the first one never tried
+            while (!model.isOver()) {
+                int count = model.legalActions(actions);
+                if (count == 0) break;
+
+                Node selected = null;
+                Node expanded = null;
+                for (int i = 0; i < count; i++) {
+                    Node child = node.child(actions[i]);
+                    if (child == null) {
+                        if (expanded == null) expanded = new Node(actions[i], model.getActor(), node);
+                        continue;
+                    }
+                    child.available++;
+                    if (selected == null || child.score() > selected.score()) selected = child;
+                }
+                if (expanded != null) selected = expanded;
+
+                model.apply(selected.action, random);
+                if (selected == expanded) {
+                    expanded.available++;
+                    node.children.add(expanded);
+                    node = expanded;
+                    break;
+                }
+                node = selected;
+            }
+
+            model.rollout(random);
+            for (; node != root; node = node.parent) {
+                node.visits++;
+                node.reward += model.reward(node.player);
+            }
+        }
+    }
+}
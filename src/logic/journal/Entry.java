@@ -0,0 +1,170 @@
+package logic.journal;
+
+import logic.utils.Card;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Entry of the journal, written as a code, the game, the seat, the card and a value,
+ * followed by the names of the seats for a {@link Event#START}.
+ * Games are identified by their seed.
+ */
+public final class Entry {
+
+    // Constants
+    public static final int HEADER_SIZE = 1 + Long.BYTES + 1 + 1 + Long.BYTES;
+    public static final int NONE = 0xFF;
+    public static final int MAX_NAME_LENGTH = 0xFF;
+
+    private static final Card[] CARDS = Card.values();
+
+    private final long game;
+    private final Event event;
+    private final int seat;
+    private final Card card;
+    private final long value;
+    private final List<String> names;
+
+    public Entry(long game, Event event, int seat, Card card, long value) {
+        this(game, event, seat, card, value, List.of());
+    }
+
+    /**
+     * @param game The seed of the game.
+     * @param event The kind of record.
+     * @param seat The seat acting, in the order of the start of the game, -1 if none.
+     * @param card The card involved, if any.
+     * @param value The value of the event, 0 if it has none.
+     * @param names The names of the seats, only for a start.
+     */
+    public Entry(long game, Event event, int seat, Card card, long value, List<String> names) {
+        this.game = game;
+        this.event = event;
+        this.seat = seat;
+        this.card = card;
+        this.value = value;
+        this.names = List.copyOf(names);
+    }
+
+    public long getGame() {
+        return game;
+    }
+
+    public Event getEvent() {
+        return event;
+    }
+
+    public int getSeat() {
+        return seat;
+    }
+
+    public Card getCard() {
+        return card;
+    }
+
+    public long getValue() {
+        return value;
+    }
+
+    public List<String> getNames() {
+        return names;
+    }
+
+    /**
+     * Computes the number of bytes taken by the record in the journal.
+     *
+     * @return The size of the record.
+     */
+    public int size() {
+        int size = HEADER_SIZE;
+        if (event == Event.START) {
+            size++;
+            for (String name : names) size += 1 + Math.min(name.getBytes(UTF_8).length, MAX_NAME_LENGTH);
+        }
+        return size;
+    }
+
+    /**
+     * Writes the record at the position of a buffer.
+     *
+     * @param buffer The buffer, with at least {@link #size()} bytes remaining.
+     */
+    public void write(ByteBuffer buffer) {
+        int start = buffer.position();
+        buffer.position(start + 1);
+        buffer.putLong(game);
+        buffer.put((byte) (seat < 0 ? NONE : seat));
+        buffer.put((byte) (card == null ? NONE : card.ordinal()));
+        buffer.putLong(value);
+        if (event == Event.START) {
+            buffer.put((byte) names.size());
+            for (String name : names) {
+                byte[] bytes = name.getBytes(UTF_8);
+                int length = Math.min(bytes.length, MAX_NAME_LENGTH);
+                buffer.put((byte) length);
+                buffer.put(bytes, 0, length);
+            }
+        }
+        buffer.put(start, (byte) event.code()); // written last so a reader never sees half a record
+    }
+
+    /**
+     * Reads the record at the position of a buffer.
+     *
+     * @param buffer The buffer.
+     * @return The record, or null if the rest of the buffer has not been written.
+     */
+    public static Entry read(ByteBuffer buffer) {
+        if (buffer.remaining() < HEADER_SIZE) return null;
+        Event event = Event.of(buffer.get(buffer.position()));
+        if (event == null) return null;
+
+        buffer.get();
+        long game = buffer.getLong();
+        int seat = buffer.get() & 0xFF;
+        int card = buffer.get() & 0xFF;
+        long value = buffer.getLong();
+        List<String> names = new ArrayList<>();
+        if (event == Event.START) {
+            int count = buffer.get() & 0xFF;
+            for (int i = 0; i < count; i++) {
+                byte[] bytes = new byte[buffer.get() & 0xFF];
+                buffer.get(bytes);
+                names.add(new String(bytes, UTF_8));
+            }
+        }
+        return new Entry(game, event, seat == NONE ? -1 : seat, card == NONE ? null : CARDS[card], value, names);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Entry)) return false;
+        Entry record = (Entry) o;
+        return game == record.game
+                && event == record.event
+                && seat == record.seat
+                && card == record.card
+                && value == record.value
+                && names.equals(record.names);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(game, event, seat, card, value, names);
+    }
+
+    @Override
+    public String toString() {
+        return event + " " + game
+                + (seat >= 0 ? " seat " + seat : "")
+                + (card != null ? " " + card : "")
+                + (value != 0 ? " " + value : "")
+                + (names.isEmpty() ? "" : " " + names);
+    }
+}
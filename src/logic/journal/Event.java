@@ -0,0 +1,95 @@
+package logic.journal;
+
+/**
+ * Kinds of records of the journal.
+ * The actions of the participants and the timed events are replayed, the derived ones are only checked by a replay.
+ * New events go at the end, the codes of the journaled ones must not change.
+ */
+public enum Event {
+    /**
+     * Start of a game, with its seed and the names of its seats.
+     */
+    START,
+    /**
+     * A card played by a seat.
+     */
+    MOVE,
+    /**
+     * A NOPE played by a seat.
+     */
+    NOPE,
+    /**
+     * A card drawn by a seat.
+     */
+    DRAW,
+    /**
+     * The seat targeted by a favor, the value is the targeted seat.
+     */
+    TARGET,
+    /**
+     * A card given for a favor.
+     */
+    GIVE,
+    /**
+     * A card put back in the deck, the value is its position from the bottom.
+     */
+    PLACE,
+    /**
+     * A seat leaving the game.
+     */
+    LEAVE,
+    /**
+     * The end of a nope window, the value is the window.
+     */
+    WINDOW,
+    /**
+     * The turn of a seat that has lost given away, the value is the index of the next player.
+     */
+    PASS,
+    /**
+     * Derived: the turn given to a seat.
+     */
+    TURN,
+    /**
+     * Derived: a shuffle of the deck, the value is its seed.
+     */
+    SHUFFLE,
+    /**
+     * A snapshot of the game, the value is the seed the game draws from afterwards.
+     */
+    SNAPSHOT,
+    /**
+     * Derived: the end of a game, the seat is the winner.
+     */
+    END;
+
+    private static final Event[] EVENTS = values();
+
+    /**
+     * Checks if the record is a consequence of the previous ones rather than something to replay.
+     *
+     * @return true for the derived events, false otherwise.
+     */
+    public boolean isDerived() {
+        return this == TURN || this == SHUFFLE || this == END;
+    }
+
+    /**
+     * Retrieves the code written in the journal, 0 being left for the unwritten space.
+     *
+     * @return The code of the event.
+     */
+    public int code() {
+        return ordinal() + 1;
+    }
+
+    /**
+     * Retrieves an event from its code.
+     *
+     * @param code The code read from the journal.
+     * @return The event, or null for the unwritten space or an unknown code.
+     */
+    public static Event of(int code) {
+        return code > 0 && code <= EVENTS.length ? EVENTS[code - 1] : null;
+    }
+}
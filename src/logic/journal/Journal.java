@@ -0,0 +1,19 @@
+package logic.journal;
+
+/**
+ * Sink of the records of the games, appended from the game loops which must never wait on it.
+ */
+public interface Journal {
+
+    /**
+     * Journal dropping every record, used when nothing has to be kept.
+     */
+    Journal NONE = record -> {};
+
+    /**
+     * Appends a record, the records of a game are appended in the order they happened.
+     *
+     * @param record The record to be appended.
+     */
+    void append(Entry record);
+}
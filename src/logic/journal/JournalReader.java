@@ -0,0 +1,112 @@
+package logic.journal;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Reads back the segments written by a {@link MappedJournal}, in the order they were written.
+ */
+public class JournalReader {
+
+    // Constants
+    public static final String EXTENSION = ".journal";
+
+    private JournalReader() {}
+
+    /**
+     * Builds the path of a segment, numbered so the names sort in the order of the segments.
+     *
+     * @param folder The folder of the journal.
+     * @param segment The number of the segment.
+     * @return The path of the segment.
+     */
+    public static Path segmentPath(Path folder, int segment) {
+        return folder.resolve(String.format("%08d", segment) + EXTENSION);
+    }
+
+    /**
+     * Lists the segments of a folder.
+     *
+     * @param folder The folder of the journal.
+     * @return The paths of the segments, oldest first.
+     * @throws IOException If the folder cannot be listed.
+     */
+    public static List<Path> segments(Path folder) throws IOException {
+        if (!Files.isDirectory(folder)) return List.of();
+        try (Stream<Path> files = Files.list(folder)) {
+            return files
+                    .filter(file -> file.getFileName().toString().endsWith(EXTENSION))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Retrieves the number of the last segment of a folder.
+     *
+     * @param folder The folder of the journal.
+     * @return The number of the last segment, -1 if there is none.
+     * @throws IOException If the folder cannot be listed.
+     */
+    public static int lastSegment(Path folder) throws IOException {
+        List<Path> segments = segments(folder);
+        if (segments.isEmpty()) return -1;
+        return number(segments.get(segments.size() - 1));
+    }
+
+    private static int number(Path segment) {
+        String name = segment.getFileName().toString();
+        return Integer.parseInt(name.substring(0, name.length() - EXTENSION.length()));
+    }
+
+    /**
+     * Reads all the records of a folder.
+     *
+     * @param folder The folder of the journal.
+     * @return The records, in the order they were appended.
+     * @throws IOException If a segment cannot be read.
+     */
+    public static List<Entry> read(Path folder) throws IOException {
+        return read(folder, 0);
+    }
+
+    /**
+     * Reads the records of a folder from a segment on.
+     *
+     * @param folder The folder of the journal.
+     * @param from The number of the first segment to read.
+     * @return The records, in the order they were appended.
+     * @throws IOException If a segment cannot be read.
+     */
+    public static List<Entry> read(Path folder, int from) throws IOException {
+        List<Entry> records = new ArrayList<>();
+        for (Path segment : segments(folder)) {
+            if (number(segment) < from) continue;
+            try (FileChannel channel = FileChannel.open(segment)) {
+                MappedByteBuffer mapping = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                Entry record;
+                while ((record = Entry.read(mapping)) != null) records.add(record);
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Reads the records of one game.
+     *
+     * @param folder The folder of the journal.
+     * @param game The seed of the game.
+     * @return The records of the game, in the order they were appended.
+     * @throws IOException If a segment cannot be read.
+     */
+    public static List<Entry> readGame(Path folder, long game) throws IOException {
+        return read(folder).stream().filter(record -> record.getGame() == game).collect(Collectors.toList());
+    }
+}
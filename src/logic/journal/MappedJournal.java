@@ -0,0 +1,124 @@
+package logic.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.LinkedTransferQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Journal appending the records to memory-mapped segment files of a folder.
+ * The game loops only hand their records over to a queue, a single writer thread copies them into the mapping
+ * and forces the mapping to the disk at most every FORCE_INTERVAL milliseconds instead of once per record.
+ * A record written to the mapping survives a crash of the process, only a crash of the machine loses the records
+ * written since the last force.
+ */
+public class MappedJournal implements Journal, Closeable {
+
+    // Constants
+    public static final long SEGMENT_SIZE = 64L << 20;
+    public static final long FORCE_INTERVAL = 1000;
+
+    private final Path folder;
+    private final LinkedTransferQueue<Entry> queue;
+    private final Thread writer;
+    private volatile boolean closed;
+    private FileChannel channel;
+    private MappedByteBuffer mapping;
+    private volatile int segment;
+    private boolean dirty;
+    private long lastForce;
+
+    /**
+     * Opens a journal writing after the segments already in a folder.
+     *
+     * @param folder The folder of the segments, created if needed.
+     * @throws IOException If the first segment cannot be created.
+     */
+    public MappedJournal(Path folder) throws IOException {
+        this.folder = folder;
+        this.queue = new LinkedTransferQueue<>();
+        Files.createDirectories(folder);
+        this.segment = JournalReader.lastSegment(folder) + 1;
+        map();
+
+        this.writer = new Thread(this::write, "journal-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Retrieves the segment being written, the records appended from now on go to this segment or a later one.
+     *
+     * @return The number of the segment.
+     */
+    public int getSegment() {
+        return segment;
+    }
+
+    @Override
+    public void append(Entry record) {
+        if (!closed) queue.offer(record); // never blocks, the queue is unbounded
+    }
+
+    /**
+     * Copies the queued records into the mapping until the journal is closed and the queue is empty.
+     */
+    private void write() {
+        try {
+            while (!closed || !queue.isEmpty()) {
+                Entry record = queue.poll(FORCE_INTERVAL, TimeUnit.MILLISECONDS);
+                if (record != null) put(record);
+                if (dirty && System.currentTimeMillis() - lastForce >= FORCE_INTERVAL) force();
+            }
+            force();
+        } catch (InterruptedException | IOException e) {
+            System.out.println("The journal has stopped: " + e.getMessage());
+        }
+    }
+
+    private void put(Entry record) throws IOException {
+        if (record.size() > mapping.remaining()) {
+            force();
+            channel.close();
+            segment++;
+            map();
+        }
+        record.write(mapping);
+        dirty = true;
+    }
+
+    private void map() throws IOException {
+        channel = FileChannel.open(
+                JournalReader.segmentPath(folder, segment),
+                StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ,
+                StandardOpenOption.WRITE
+        );
+        mapping = channel.map(FileChannel.MapMode.READ_WRITE, 0, SEGMENT_SIZE);
+    }
+
+    private void force() {
+        if (dirty) mapping.force();
+        dirty = false;
+        lastForce = System.currentTimeMillis();
+    }
+
+    /**
+     * Writes the records still queued, forces them to the disk and stops the writer.
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+    }
+}
@@ -0,0 +1,174 @@
+package logic.journal;
+
+import logic.Game;
+import logic.Participant;
+import logic.Scheduler;
+import logic.utils.Card;
+import logic.utils.players.Player;
+import networking.protocol.Command;
+import networking.protocol.Error;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Rebuilds a game from its journal: a game is created with the same seed and seats, then its records are applied
+ * in order. The records produced again by the game are checked against the journal, the replay fails if they differ.
+ * Nothing runs on its own during a replay, the nope windows and the turns given away are records of their own.
+ */
+public class Replay {
+
+    private static final Scheduler NEVER = (task, delay, unit) -> new Scheduler.Timeout() {
+        @Override
+        public void cancel() {}
+
+        @Override
+        public boolean isExpired() {
+            return false;
+        }
+    };
+
+    private Replay() {}
+
+    /**
+     * Rebuilds a game as it was after some of its records.
+     *
+     * @param records The records of the game, starting with its start.
+     * @param count The number of records to apply.
+     * @return The game in the state it was after the last record applied.
+     * @throws IllegalArgumentException If the records do not start with the start of a game.
+     * @throws IllegalStateException If the game does not produce the same records as the journal.
+     */
+    public static Game replay(List<Entry> records, int count) {
+        if (records.isEmpty() || records.get(0).getEvent() != Event.START) {
+            throw new IllegalArgumentException("The records do not start with the start of a game");
+        }
+        Entry start = records.get(0);
+        List<Seat> seats = start.getNames().stream().map(Seat::new).collect(Collectors.toList());
+
+        Game game = new Game(seats, () -> {}, event -> {}, NEVER, start.getGame());
+        apply(game, records, count, Journal.NONE);
+        return game;
+    }
+
+    /**
+     * Applies records on a game, checking the records it produces again, then hands the game its journal.
+     * Must be run on the loop of the game.
+     *
+     * @param game The game, either new or restored from the snapshot preceding the records.
+     * @param records The records of the game.
+     * @param count The number of records to apply.
+     * @param journal The journal of the game once the records are applied.
+     * @throws IllegalStateException If the game does not produce the same records as the journal.
+     */
+    public static void apply(Game game, List<Entry> records, int count, Journal journal) {
+        game.setJournal(new Checker(records));
+        try {
+            for (Entry record : records.subList(0, Math.min(count, records.size()))) {
+                if (!record.getEvent().isDerived()) game.replay(record);
+            }
+        } finally {
+            game.setJournal(journal);
+        }
+    }
+
+    /**
+     * Keeps the records of a game journaled after one of its snapshots.
+     *
+     * @param snapshot The snapshot of the game.
+     * @param records The records of the game.
+     * @return The records after the snapshot, none if the journal stops before the snapshot.
+     */
+    public static List<Entry> after(Snapshot snapshot, List<Entry> records) {
+        for (int i = 0; i < records.size(); i++) {
+            Entry record = records.get(i);
+            if (record.getEvent() == Event.SNAPSHOT && record.getValue() == snapshot.getRandom()) {
+                return records.subList(i + 1, records.size());
+            }
+        }
+        return List.of();
+    }
+
+    /**
+     * Lists the games of a journal folder, or prints the records of one of them and the state they lead to.
+     *
+     * @param args The folder, optionally followed by the seed of a game and the number of records to apply.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.out.println("Usage: Replay <folder> [seed] [records]");
+            return;
+        }
+        Path folder = Paths.get(args[0]);
+
+        if (args.length == 1) {
+            Map<Long, Integer> counts = new LinkedHashMap<>();
+            Map<Long, List<String>> names = new LinkedHashMap<>();
+            for (Entry record : JournalReader.read(folder)) {
+                counts.merge(record.getGame(), 1, Integer::sum);
+                if (record.getEvent() == Event.START) names.put(record.getGame(), record.getNames());
+            }
+            counts.forEach((seed, count) -> System.out.println(seed + " " + names.get(seed) + " " + count + " records"));
+            return;
+        }
+
+        List<Entry> records = JournalReader.readGame(folder, Long.parseLong(args[1]));
+        int count = args.length > 2 ? Integer.parseInt(args[2]) : records.size();
+        records.subList(0, Math.min(count, records.size())).forEach(System.out::println);
+        System.out.println(replay(records, count));
+    }
+
+    /**
+     * Journal comparing the records produced by the replayed game with the journaled ones.
+     */
+    private static class Checker implements Journal {
+
+        private final List<Entry> expected;
+        private int index;
+
+        private Checker(List<Entry> expected) {
+            this.expected = expected;
+        }
+
+        @Override
+        public void append(Entry record) {
+            if (index < expected.size() && !expected.get(index).equals(record)) {
+                throw new IllegalStateException(
+                        "The replay differs from the journal at record " + index + ": " + record + " instead of " + expected.get(index)
+                );
+            }
+            index++;
+        }
+    }
+
+    /**
+     * Seat of a replayed game, nobody listens to what the game sends.
+     */
+    private static class Seat implements Participant {
+
+        private final Player player;
+
+        private Seat(String name) {
+            this.player = new Player(name);
+        }
+
+        @Override
+        public Player getPlayer() {
+            return player;
+        }
+
+        @Override
+        public void sendCommand(Command command, String... args) {}
+
+        @Override
+        public void sendError(Error error) {}
+
+        @Override
+        public void sendState(Card topCard, int pileSize, boolean full) {}
+    }
+}
@@ -0,0 +1,270 @@
+package logic.journal;
+
+import logic.utils.Card;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Copy of the full state of a game at the time of a {@link Event#SNAPSHOT} record, taken on the loop of the game
+ * and encoded elsewhere. A game is restored from its latest snapshot and the records journaled after it.
+ * Seats are numbered in the order of the start of the game, -1 standing for none. The session token of each seat
+ * is kept so only the client it was given to can take the seat back once the game is restored.
+ */
+public final class Snapshot {
+
+    // Constants
+    public static final int VERSION = 2; // 1 had no session tokens
+
+    private static final Card[] CARDS = Card.values();
+
+    private final long game;
+    private final long random;
+    private final int segment;
+    private final List<String> names;
+    private final List<String> tokens;
+    private final boolean[] out;
+    private final int[][] hands;
+    private final byte[] deck;
+    private final List<Card> actionStack;
+    private final List<Card> skippedStack;
+    private final Card nopedCard;
+    private final Card lastCard;
+    private final int current;
+    private final int previous;
+    private final int favorTarget;
+    private final int nopeWindow;
+    private final boolean windowOpen;
+    private final boolean canNope;
+    private final boolean awaitUserInteraction;
+
+    /**
+     * @param game The seed of the game.
+     * @param random The seed the game has drawn its randomness from since the snapshot.
+     * @param segment The segment of the journal being written when the snapshot was taken, the tail starts there or later.
+     * @param names The names of the seats.
+     * @param tokens The session tokens of the seats, empty for a seat without one.
+     * @param out Flags of the seats that have left the game.
+     * @param hands The card counts of each seat, by card ordinal.
+     * @param deck The cards of the deck by ordinal, from the bottom.
+     * @param actionStack The actions to do, from the bottom.
+     * @param skippedStack The skipped actions, from the bottom.
+     * @param nopedCard The card removed by the last NOPE, if any.
+     * @param lastCard The last card played, if any.
+     * @param current The seat playing.
+     * @param previous The seat that played before, if any.
+     * @param favorTarget The seat that has to give a card, if any.
+     * @param nopeWindow The identifier of the last nope window.
+     * @param windowOpen Flag indicating whether a card is waiting for the end of its nope window.
+     * @param canNope Flag indicating whether the last card can still be noped.
+     * @param awaitUserInteraction Flag indicating whether the game waits for a choice of the current seat.
+     */
+    public Snapshot(long game, long random, int segment, List<String> names, List<String> tokens, boolean[] out,
+                    int[][] hands, byte[] deck, List<Card> actionStack, List<Card> skippedStack, Card nopedCard, Card lastCard,
+                    int current, int previous, int favorTarget,
+                    int nopeWindow, boolean windowOpen, boolean canNope, boolean awaitUserInteraction) {
+        this.game = game;
+        this.random = random;
+        this.segment = segment;
+        this.names = List.copyOf(names);
+        this.tokens = List.copyOf(tokens);
+        this.out = out;
+        this.hands = hands;
+        this.deck = deck;
+        this.actionStack = List.copyOf(actionStack);
+        this.skippedStack = List.copyOf(skippedStack);
+        this.nopedCard = nopedCard;
+        this.lastCard = lastCard;
+        this.current = current;
+        this.previous = previous;
+        this.favorTarget = favorTarget;
+        this.nopeWindow = nopeWindow;
+        this.windowOpen = windowOpen;
+        this.canNope = canNope;
+        this.awaitUserInteraction = awaitUserInteraction;
+    }
+
+    public long getGame() {
+        return game;
+    }
+
+    public long getRandom() {
+        return random;
+    }
+
+    public int getSegment() {
+        return segment;
+    }
+
+    public List<String> getNames() {
+        return names;
+    }
+
+    /**
+     * Retrieves the session token of a seat.
+     *
+     * @param seat The seat.
+     * @return The token, empty if the seat had none.
+     */
+    public String getToken(int seat) {
+        return tokens.get(seat);
+    }
+
+    public boolean isOut(int seat) {
+        return out[seat];
+    }
+
+    public int getCount(int seat, Card card) {
+        return hands[seat][card.ordinal()];
+    }
+
+    public byte[] getDeck() {
+        return deck.clone();
+    }
+
+    public List<Card> getActionStack() {
+        return actionStack;
+    }
+
+    public List<Card> getSkippedStack() {
+        return skippedStack;
+    }
+
+    public Card getNopedCard() {
+        return nopedCard;
+    }
+
+    public Card getLastCard() {
+        return lastCard;
+    }
+
+    public int getCurrent() {
+        return current;
+    }
+
+    public int getPrevious() {
+        return previous;
+    }
+
+    public int getFavorTarget() {
+        return favorTarget;
+    }
+
+    public int getNopeWindow() {
+        return nopeWindow;
+    }
+
+    public boolean isWindowOpen() {
+        return windowOpen;
+    }
+
+    public boolean canNope() {
+        return canNope;
+    }
+
+    public boolean isAwaitingUserInteraction() {
+        return awaitUserInteraction;
+    }
+
+    /**
+     * Encodes the snapshot, the deck and the hands take a byte per card.
+     *
+     * @return The bytes of the snapshot.
+     */
+    public byte[] encode() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION);
+            out.writeLong(game);
+            out.writeLong(random);
+            out.writeInt(segment);
+            out.writeByte(names.size());
+            for (int seat = 0; seat < names.size(); seat++) {
+                out.writeUTF(names.get(seat));
+                out.writeUTF(tokens.get(seat));
+                out.writeBoolean(this.out[seat]);
+                for (int count : hands[seat]) out.writeByte(count);
+            }
+            out.writeShort(deck.length);
+            out.write(deck);
+            writeCards(out, actionStack);
+            writeCards(out, skippedStack);
+            writeCard(out, nopedCard);
+            writeCard(out, lastCard);
+            out.writeByte(current);
+            out.writeByte(previous);
+            out.writeByte(favorTarget);
+            out.writeInt(nopeWindow);
+            out.writeBoolean(windowOpen);
+            out.writeBoolean(canNope);
+            out.writeBoolean(awaitUserInteraction);
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // never thrown by an in-memory stream
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decodes a snapshot.
+     *
+     * @param bytes The bytes of the snapshot.
+     * @return The snapshot.
+     * @throws IOException If the bytes are not a snapshot of this version or of the previous one, without tokens.
+     */
+    public static Snapshot decode(byte[] bytes) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        int version = in.readByte();
+        if (version != VERSION && version != 1) throw new IOException("Unknown snapshot version");
+        long game = in.readLong();
+        long random = in.readLong();
+        int segment = in.readInt();
+        int seats = in.readByte();
+        List<String> names = new ArrayList<>();
+        List<String> tokens = new ArrayList<>();
+        boolean[] out = new boolean[seats];
+        int[][] hands = new int[seats][CARDS.length];
+        for (int seat = 0; seat < seats; seat++) {
+            names.add(in.readUTF());
+            tokens.add(version == 1 ? "" : in.readUTF());
+            out[seat] = in.readBoolean();
+            for (int card = 0; card < CARDS.length; card++) hands[seat][card] = in.readUnsignedByte();
+        }
+        byte[] deck = new byte[in.readUnsignedShort()];
+        in.readFully(deck);
+        List<Card> actionStack = readCards(in);
+        List<Card> skippedStack = readCards(in);
+        Card nopedCard = readCard(in);
+        Card lastCard = readCard(in);
+        return new Snapshot(
+                game, random, segment, names, tokens, out, hands, deck, actionStack, skippedStack, nopedCard, lastCard,
+                in.readByte(), in.readByte(), in.readByte(),
+                in.readInt(), in.readBoolean(), in.readBoolean(), in.readBoolean()
+        );
+    }
+
+    private static void writeCards(DataOutputStream out, List<Card> cards) throws IOException {
+        out.writeShort(cards.size());
+        for (Card card : cards) out.writeByte(card.ordinal());
+    }
+
+    private static List<Card> readCards(DataInputStream in) throws IOException {
+        int size = in.readUnsignedShort();
+        List<Card> cards = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) cards.add(CARDS[in.readUnsignedByte()]);
+        return cards;
+    }
+
+    private static void writeCard(DataOutputStream out, Card card) throws IOException {
+        out.writeByte(card == null ? Entry.NONE : card.ordinal());
+    }
+
+    private static Card readCard(DataInputStream in) throws IOException {
+        int card = in.readUnsignedByte();
+        return card == Entry.NONE ? null : CARDS[card];
+    }
+}
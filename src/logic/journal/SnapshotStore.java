@@ -0,0 +1,149 @@
+package logic.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Keeps the latest snapshot of each game in a file of its own, named after the seed of the game.
+ * Snapshots are encoded and written by a single writer thread, a file is replaced at once so a crash while writing
+ * leaves the previous snapshot in place.
+ */
+public class SnapshotStore implements Closeable {
+
+    // Constants
+    public static final String EXTENSION = ".snapshot";
+    public static final String CHECKPOINT = "checkpoint";
+
+    private final Path folder;
+    private final ExecutorService writer;
+
+    /**
+     * Opens the snapshots of a folder.
+     *
+     * @param folder The folder of the snapshots, created if needed.
+     * @throws IOException If the folder cannot be created.
+     */
+    public SnapshotStore(Path folder) throws IOException {
+        this.folder = folder;
+        Files.createDirectories(folder);
+        this.writer = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "snapshot-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Writes a snapshot in the background, replacing the previous one of the game.
+     *
+     * @param snapshot The snapshot to be written.
+     * @return A future completed once the snapshot is on the disk, or exceptionally if it could not be written.
+     */
+    public CompletableFuture<Void> save(Snapshot snapshot) {
+        return CompletableFuture.runAsync(() -> {
+            Path file = folder.resolve(snapshot.getGame() + EXTENSION);
+            Path temporary = folder.resolve(snapshot.getGame() + EXTENSION + ".tmp");
+            try {
+                Files.write(temporary, snapshot.encode());
+                Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                System.out.println("Could not write the snapshot of game " + snapshot.getGame() + ": " + e.getMessage());
+                throw new UncheckedIOException(e);
+            }
+        }, writer);
+    }
+
+    /**
+     * Records the segment of the journal being written when a round of snapshots started, in the background.
+     * Only called once every snapshot of the round is written: every game running before the round has a snapshot
+     * from it, the others have started in this segment or later.
+     *
+     * @param segment The number of the segment.
+     */
+    public void saveCheckpoint(int segment) {
+        writer.execute(() -> {
+            try {
+                Path temporary = folder.resolve(CHECKPOINT + ".tmp");
+                Files.write(temporary, Integer.toString(segment).getBytes(StandardCharsets.US_ASCII));
+                Files.move(temporary, folder.resolve(CHECKPOINT), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                System.out.println("Could not write the snapshot checkpoint: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Reads the segment of the journal recorded by the last round of snapshots.
+     *
+     * @return The number of the segment, 0 if no round has finished.
+     */
+    public int loadCheckpoint() {
+        try {
+            return Integer.parseInt(new String(Files.readAllBytes(folder.resolve(CHECKPOINT)), StandardCharsets.US_ASCII).trim());
+        } catch (IOException | NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Deletes the snapshot of a game that has ended, in the background.
+     *
+     * @param game The seed of the game.
+     */
+    public void delete(long game) {
+        writer.execute(() -> {
+            try {
+                Files.deleteIfExists(folder.resolve(game + EXTENSION));
+            } catch (IOException ignored) {}
+        });
+    }
+
+    /**
+     * Reads the snapshots of every game, in parallel.
+     *
+     * @return The snapshots, the unreadable ones are skipped.
+     * @throws IOException If the folder cannot be listed.
+     */
+    public List<Snapshot> load() throws IOException {
+        List<Path> files;
+        try (Stream<Path> list = Files.list(folder)) {
+            files = list.filter(file -> file.getFileName().toString().endsWith(EXTENSION)).collect(Collectors.toList());
+        }
+        return files.parallelStream()
+                .map(file -> {
+                    try {
+                        return Snapshot.decode(Files.readAllBytes(file));
+                    } catch (IOException e) {
+                        System.out.println("Skipping the snapshot " + file.getFileName() + ": " + e.getMessage());
+                        return null;
+                    }
+                })
+                .filter(snapshot -> snapshot != null)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Writes the snapshots still waiting and stops the writer.
+     */
+    @Override
+    public void close() {
+        writer.shutdown();
+        try {
+            writer.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package logic.simulation;
+
+import logic.Game;
+import logic.Participant;
+import logic.utils.Card;
+import logic.utils.players.Player;
+import networking.protocol.Command;
+import networking.protocol.Error;
+
+import java.util.Arrays;
+
+/**
+ * In-memory participant reacting to the commands of the game like a client would, without any connection.
+ * Its actions are posted to the game as events, the same way the client handlers do.
+ */
+public class Agent implements Participant {
+
+    private final Player player;
+    private final Strategy strategy;
+    private Game game;
+    private Card played;
+    private boolean placing; // holds a defused kitten, a refused placement is retried once
+    private int pileSize;
+    private boolean canPlay;
+
+    public Agent(String name, Strategy strategy) {
+        this.player = new Player(name);
+        this.strategy = strategy;
+    }
+
+    /**
+     * Seats the agent in a game.
+     *
+     * @param game The game played by the agent.
+     */
+    public void setGame(Game game) {
+        this.game = game;
+    }
+
+    @Override
+    public Player getPlayer() {
+        return player;
+    }
+
+    @Override
+    public void sendCommand(Command command, String... args) {
+        switch (command) {
+            case NEXT:
+                canPlay = player.getName().equals(args[1]);
+                if (canPlay) play();
+                break;
+            case EXECUTEDMOVE:
+                placing = false;
+                if (canPlay) play();
+                break;
+            case HAND:
+                String target = strategy.chooseTarget(Arrays.asList(args[0].split(", ")));
+                game.execute(() -> game.chooseTarget(this, target));
+                break;
+            case DEMAND:
+                Card card = strategy.chooseCard(player.getHand());
+                game.execute(() -> game.giveCard(this, card));
+                break;
+            case EXPLODINGKITTEN:
+                placing = true;
+                int position = strategy.choosePosition(pileSize);
+                game.execute(() -> game.place(this, Card.EXPLODING_KITTEN, position));
+                break;
+            case GAMEOVER:
+                canPlay = false;
+                placing = false;
+                break;
+        }
+    }
+
+    /**
+     * Handles an error of the game, a refused move is replaced by a draw to keep the game going
+     * and a refused placement is retried once on top of the deck, always a valid position.
+     *
+     * @param error The error to be sent.
+     */
+    @Override
+    public void sendError(Error error) {
+        if (placing && player.hasCard(Card.EXPLODING_KITTEN)) {
+            placing = false;
+            game.execute(() -> game.place(this, Card.EXPLODING_KITTEN, 0));
+            return;
+        }
+        if (error == Error.E6) canPlay = false;
+        if (!canPlay || played == null) return;
+
+        played = null;
+        game.execute(() -> game.drawCard(this));
+    }
+
+    @Override
+    public void sendState(Card topCard, int pileSize, boolean full) {
+        this.pileSize = pileSize;
+    }
+
+    @Override
+    public void onNopeWindow(Participant player, Card card) {
+        if (player == this || !this.player.hasCard(Card.NOPE)) return;
+        if (strategy.nope(this.player.getHand(), card)) game.execute(() -> game.doMove(this, Card.NOPE));
+    }
+
+    /**
+     * Plays the card chosen by the strategy, or draws a card.
+     */
+    private void play() {
+        played = strategy.takeTurn(player.getHand());
+        Card card = played;
+        if (card == null) game.execute(() -> game.drawCard(this));
+        else game.execute(() -> game.doMove(this, card));
+    }
+}
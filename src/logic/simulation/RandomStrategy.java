@@ -0,0 +1,57 @@
+package logic.simulation;
+
+import logic.utils.Card;
+import logic.utils.Hand;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Strategy picking uniformly among the legal choices, the baseline other bots are measured against.
+ */
+public class RandomStrategy implements Strategy {
+
+    // Constants
+    public static final List<Card> ACTION_CARDS = List.of(Card.ATTACK, Card.SKIP, Card.FAVOR, Card.SHUFFLE, Card.SEE_THE_FUTURE);
+
+    private final SplittableRandom random;
+
+    public RandomStrategy(SplittableRandom random) {
+        this.random = random;
+    }
+
+    @Override
+    public Card takeTurn(Hand hand) {
+        if (random.nextBoolean()) return null;
+
+        int playable = 0;
+        for (Card card : hand) if (ACTION_CARDS.contains(card)) playable++;
+        if (playable == 0) return null;
+
+        int pick = random.nextInt(playable);
+        for (Card card : hand) {
+            if (ACTION_CARDS.contains(card) && pick-- == 0) return card;
+        }
+        return null;
+    }
+
+    @Override
+    public String chooseTarget(List<String> targets) {
+        return targets.get(random.nextInt(targets.size()));
+    }
+
+    @Override
+    public Card chooseCard(Hand hand) {
+        return hand.get(random.nextInt(hand.size()));
+    }
+
+    @Override
+    public int choosePosition(int pileSize) {
+        return random.nextInt(pileSize + 1);
+    }
+
+    @Override
+    public boolean nope(Hand hand, Card card) {
+        return random.nextInt(4) == 0;
+    }
+}
@@ -0,0 +1,78 @@
+package logic.simulation;
+
+import logic.Scheduler;
+
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scheduler running on a virtual clock, time only moves forward when the simulation has nothing else to do
+ * so a nope window costs nothing.
+ */
+public class SimulatedScheduler implements Scheduler {
+
+    private final PriorityQueue<Task> tasks;
+    private long now;
+    private long sequence;
+
+    public SimulatedScheduler() {
+        this.tasks = new PriorityQueue<>(Comparator.comparingLong((Task task) -> task.deadline).thenComparingLong(task -> task.sequence));
+    }
+
+    @Override
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        Task scheduled = new Task(task, now + unit.toNanos(delay), sequence++);
+        tasks.add(scheduled);
+        return scheduled;
+    }
+
+    /**
+     * Moves the clock to the next task still scheduled and runs it.
+     *
+     * @return true if a task has been run, false if nothing is scheduled.
+     */
+    public boolean advance() {
+        Task task;
+        while ((task = tasks.poll()) != null) {
+            if (task.cancelled) continue;
+            now = task.deadline;
+            task.task.run();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Retrieves the virtual time elapsed since the start of the simulation.
+     *
+     * @return The time in nanoseconds.
+     */
+    public long now() {
+        return now;
+    }
+
+    private class Task implements Timeout {
+
+        private final Runnable task;
+        private final long deadline;
+        private final long sequence;
+        private boolean cancelled;
+
+        private Task(Runnable task, long deadline, long sequence) {
+            this.task = task;
+            this.deadline = deadline;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+        }
+
+        @Override
+        public boolean isExpired() {
+            return now >= deadline;
+        }
+    }
+}
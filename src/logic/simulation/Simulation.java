@@ -0,0 +1,123 @@
+package logic.simulation;
+
+import logic.Game;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.IntStream;
+
+/**
+ * Headless game between in-memory agents, the rules are the ones of {@link Game} but the events run on the calling
+ * thread and the nope windows on a virtual clock, so a game takes microseconds and many run in parallel.
+ */
+public class Simulation implements Executor {
+
+    // Constants
+    public static final int MAX_STEPS = 100_000;
+
+    private final Queue<Runnable> tasks;
+    private final SimulatedScheduler scheduler;
+    private final List<Agent> agents;
+    private final List<Agent> seated;
+    private final Game game;
+    private boolean over;
+
+    /**
+     * Creates a game with an agent per strategy.
+     *
+     * @param strategies The strategies of the agents, in seat order.
+     * @param seed The seed of the game.
+     */
+    public Simulation(List<? extends Strategy> strategies, long seed) {
+        this.tasks = new ArrayDeque<>();
+        this.scheduler = new SimulatedScheduler();
+        this.agents = new ArrayList<>();
+        for (int i = 0; i < strategies.size(); i++) agents.add(new Agent("bot" + i, strategies.get(i)));
+        this.seated = new ArrayList<>(agents);
+        this.game = new Game(seated, () -> over = true, this, scheduler, seed);
+        agents.forEach(agent -> agent.setGame(game));
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        tasks.add(task);
+    }
+
+    /**
+     * Plays the game until a single agent is left, moving the clock whenever every agent is waiting.
+     *
+     * @return The seat of the winner, or -1 if the game got stuck.
+     */
+    public int run() {
+        game.execute(game::startGame);
+
+        int steps = 0;
+        while (!over && steps < MAX_STEPS) {
+            Runnable task = tasks.poll();
+            if (task == null) {
+                if (!scheduler.advance()) break; // nobody can act anymore
+                continue;
+            }
+            task.run();
+            steps++;
+        }
+
+        return over ? agents.indexOf(seated.get(0)) : -1;
+    }
+
+    /**
+     * Runs random games in parallel and reports the throughput and the wins of each seat.
+     * Game i is played with the seed base + i, its agents drawing from the same seed, so any game can be replayed alone.
+     *
+     * @param args The number of games, the number of players, the number of threads and the base seed, all optional.
+     */
+    public static void main(String[] args) throws InterruptedException, ExecutionException {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int players = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        long base = args.length > 3 ? Long.parseLong(args[3]) : System.nanoTime();
+
+        AtomicLongArray wins = new AtomicLongArray(players);
+        Queue<Long> stuck = new ConcurrentLinkedQueue<>();
+        ForkJoinPool pool = new ForkJoinPool(threads);
+
+        System.out.println("Base seed " + base);
+        long start = System.nanoTime();
+        pool.submit(() -> IntStream.range(0, games).parallel().forEach(i -> {
+            long seed = base + i;
+            int winner = play(players, seed);
+            if (winner < 0) stuck.add(seed);
+            else wins.incrementAndGet(winner);
+        })).get();
+        long elapsed = System.nanoTime() - start;
+        pool.shutdown();
+
+        System.out.printf("%d games of %d players in %.2fs on %d threads: %.0f games/s%n",
+                games, players, elapsed / 1e9, threads, games / (elapsed / 1e9));
+        for (int seat = 0; seat < players; seat++) System.out.println("bot" + seat + " won " + wins.get(seat));
+        System.out.println(stuck.size() + " games got stuck");
+        stuck.stream().sorted().limit(10).forEach(seed -> System.out.println("stuck with seed " + seed));
+    }
+
+    /**
+     * Plays a game between random agents.
+     *
+     * @param players The number of agents.
+     * @param seed The seed of the game and of the agents.
+     * @return The seat of the winner, or -1 if the game got stuck.
+     */
+    public static int play(int players, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        List<Strategy> strategies = new ArrayList<>();
+        for (int seat = 0; seat < players; seat++) strategies.add(new RandomStrategy(random.split()));
+        return new Simulation(strategies, random.nextLong()).run();
+    }
+}
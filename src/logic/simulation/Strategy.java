@@ -0,0 +1,53 @@
+package logic.simulation;
+
+import logic.utils.Card;
+import logic.utils.Hand;
+
+import java.util.List;
+
+/**
+ * Decisions of an in-memory agent, every choice a client would ask its user for.
+ */
+public interface Strategy {
+
+    /**
+     * Chooses the card to play during the turn.
+     *
+     * @param hand The cards of the agent.
+     * @return The card to be played, or null to draw a card and end the action.
+     */
+    Card takeTurn(Hand hand);
+
+    /**
+     * Chooses the player targeted by a favor.
+     *
+     * @param targets The names of the other players.
+     * @return The name of the target.
+     */
+    String chooseTarget(List<String> targets);
+
+    /**
+     * Chooses the card given to the player asking for a favor.
+     *
+     * @param hand The cards of the agent, never empty.
+     * @return The card to be given.
+     */
+    Card chooseCard(Hand hand);
+
+    /**
+     * Chooses where to put back a defused exploding kitten.
+     *
+     * @param pileSize The number of cards left in the deck.
+     * @return The position in the deck, 0 being the bottom and the pile size the top.
+     */
+    int choosePosition(int pileSize);
+
+    /**
+     * Decides whether to nope a card played by another player, only asked when the agent holds a "NOPE".
+     *
+     * @param hand The cards of the agent.
+     * @param card The card that can be noped.
+     * @return true to play a "NOPE", false otherwise.
+     */
+    boolean nope(Hand hand, Card card);
+}
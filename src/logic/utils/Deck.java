@@ -1,31 +1,66 @@
 package logic.utils;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
-import java.util.Stack;
+import java.util.Arrays;
+import java.util.EmptyStackException;
+import java.util.SplittableRandom;
 
 import static logic.Game.DEFUSES_COUNT;
 
-public class Deck extends Stack<Card> {
+/**
+ * Pile of cards stored as card ordinals, the bottom of the pile is at index 0 and the top at size - 1.
+ */
+public class Deck {
+
+    private static final Card[] CARDS = Card.values();
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int[] INITIAL_COUNTS = new int[CARDS.length];
+
+    static {
+        INITIAL_COUNTS[Card.ATTACK.ordinal()] = 4;
+        INITIAL_COUNTS[Card.FAVOR.ordinal()] = 4;
+        INITIAL_COUNTS[Card.NOPE.ordinal()] = 5;
+        INITIAL_COUNTS[Card.SHUFFLE.ordinal()] = 4;
+        INITIAL_COUNTS[Card.SKIP.ordinal()] = 4;
+        INITIAL_COUNTS[Card.SEE_THE_FUTURE.ordinal()] = 5;
+        INITIAL_COUNTS[Card.BEARD_CAT.ordinal()] = 4;
+        INITIAL_COUNTS[Card.CATTERMELON.ordinal()] = 4;
+        INITIAL_COUNTS[Card.HAIRY_POTATO_CAT.ordinal()] = 4;
+        INITIAL_COUNTS[Card.RAINBOW_RALPHING_CAT.ordinal()] = 4;
+        INITIAL_COUNTS[Card.TACOCAT.ordinal()] = 4;
+    }
+
+    private final SplittableRandom random;
+    private byte[] cards;
+    private int size;
 
     public Deck() {
+        this(new SplittableRandom());
+    }
+
+    /**
+     * Creates a shuffled deck, the same random source always gives the same shuffles.
+     *
+     * @param random The source of the shuffles, only used by this deck.
+     */
+    public Deck(SplittableRandom random) {
+        this.random = random;
+        cards = new byte[INITIAL_CAPACITY];
         initialize();
         shuffle();
     }
 
     private void initialize() {
-        addCards(Card.ATTACK, 4);
-        addCards(Card.FAVOR, 4);
-        addCards(Card.NOPE, 5);
-        addCards(Card.SHUFFLE, 4);
-        addCards(Card.SKIP, 4);
-        addCards(Card.SEE_THE_FUTURE, 5);
-        addCards(Card.BEARD_CAT, 4);
-        addCards(Card.CATTERMELON, 4);
-        addCards(Card.HAIRY_POTATO_CAT, 4);
-        addCards(Card.RAINBOW_RALPHING_CAT, 4);
-        addCards(Card.TACOCAT, 4);
+        for (Card card : CARDS) addCards(card, INITIAL_COUNTS[card.ordinal()]);
+    }
+
+    /**
+     * Retrieves how many copies of a card a deck starts with, before the kittens and defuses are added.
+     *
+     * @param card The card to count.
+     * @return The number of copies.
+     */
+    public static int initialCount(Card card) {
+        return INITIAL_COUNTS[card.ordinal()];
     }
     public void insertExplosionsAndDefuses(int amountOfPlayers){
         addCards(Card.DEFUSE, DEFUSES_COUNT - amountOfPlayers);
@@ -34,28 +69,116 @@ public class Deck extends Stack<Card> {
     }
 
     private void addCards(Card card, int quantity) {
+        ensureCapacity(size + Math.max(quantity, 0));
         for (int i = 0; i < quantity; i++) {
-            this.add(card);
+            cards[size++] = (byte) card.ordinal();
         }
     }
-    public void shuffle() {
-        Collections.shuffle(this);
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= cards.length) return;
+        byte[] grown = new byte[Math.max(cards.length * 2, capacity)];
+        System.arraycopy(cards, 0, grown, 0, size);
+        cards = grown;
     }
 
-    public Card drawCard() {
-        return pop();
+    /**
+     * Shuffles the pile in place (Fisher-Yates).
+     */
+    public void shuffle() {
+        shuffle(random);
     }
 
-    public List<Card> peekTopCards(int numCards) {
-        List<Card> topCards = new ArrayList<>();
+    /**
+     * Shuffles the pile from a seed of its own, so the shuffle can be recorded and replayed.
+     *
+     * @param seed The seed of the shuffle.
+     */
+    public void shuffle(long seed) {
+        shuffle(new SplittableRandom(seed));
+    }
 
-        for (int i = 1; i <= Math.min(numCards, size()); i++) {
-            topCards.add(this.get(size()-i));
+    private void shuffle(SplittableRandom random) {
+        for (int i = size - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            byte card = cards[i];
+            cards[i] = cards[j];
+            cards[j] = card;
         }
-        return topCards;
     }
 
+    /**
+     * Copies the cards of the pile.
+     *
+     * @return The card ordinals, from the bottom.
+     */
+    public byte[] toBytes() {
+        return Arrays.copyOf(cards, size);
+    }
+
+    /**
+     * Replaces the cards of the pile, used to restore a game.
+     *
+     * @param cards The card ordinals, from the bottom.
+     */
+    public void load(byte[] cards) {
+        this.cards = Arrays.copyOf(cards, Math.max(cards.length, INITIAL_CAPACITY));
+        this.size = cards.length;
+    }
+
+    /**
+     * Retrieves the number of cards in the pile.
+     *
+     * @return The size of the pile.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks if the pile is empty.
+     *
+     * @return true if there are no cards left, false otherwise.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Takes the top card of the pile.
+     *
+     * @return The card drawn.
+     * @throws EmptyStackException If the pile is empty.
+     */
+    public Card drawCard() {
+        if (size == 0) throw new EmptyStackException();
+        return CARDS[cards[--size]];
+    }
+
+    /**
+     * Looks at a card of the pile without taking it.
+     *
+     * @param depth The position from the top, 0 being the top card.
+     * @return The card at that depth.
+     * @throws IndexOutOfBoundsException If the pile has no card at that depth.
+     */
+    public Card peekTopCard(int depth) {
+        if (depth < 0 || depth >= size) throw new IndexOutOfBoundsException("no card at depth " + depth);
+        return CARDS[cards[size - 1 - depth]];
+    }
+
+    /**
+     * Inserts a card in the pile.
+     *
+     * @param card The card to be inserted.
+     * @param position The position from the bottom, 0 being the bottom and size the top.
+     * @throws IndexOutOfBoundsException If the position is outside the pile.
+     */
     public void insertCardAtPosition(Card card, int position) {
-        add(position, card);
+        if (position < 0 || position > size) throw new IndexOutOfBoundsException("no position " + position);
+        ensureCapacity(size + 1);
+        System.arraycopy(cards, position, cards, position + 1, size - position);
+        cards[position] = (byte) card.ordinal();
+        size++;
     }
-}
\ No newline at end of file
+}
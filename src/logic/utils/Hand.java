@@ -0,0 +1,198 @@
+package logic.utils;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Cards of a player stored as a count per card, for the checks of the game, next to the order the cards arrived in,
+ * for the listing of the hand: a new card goes last and a removed card is the first copy listed.
+ * The copies of each card are chained in arrival order so a removal only marks the slot of the first one,
+ * the marked slots are dropped the next time a card is looked up by position or the slots are full.
+ */
+public class Hand implements Iterable<Card> {
+
+    private static final Card[] CARDS = Card.values();
+
+    private static final byte REMOVED = -1;
+
+    private final int[] counts;
+    private final int[] first; // slot of the oldest copy of each card held
+    private final int[] last;  // slot of the newest copy of each card held
+    private byte[] order; // card ordinals in arrival order, REMOVED for a removed card, the first slots ones are used
+    private int[] next;   // slot of the next copy of the same card, -1 for the newest one
+    private int slots;
+    private int size;
+    private String encoded; // cached "Players" argument, cleared on change
+
+    public Hand() {
+        this.counts = new int[CARDS.length];
+        this.first = new int[CARDS.length];
+        this.last = new int[CARDS.length];
+        this.order = new byte[16];
+        this.next = new int[16];
+    }
+
+    /**
+     * Adds a card.
+     *
+     * @param card The card to be added.
+     */
+    public void add(Card card) {
+        if (slots == order.length) {
+            compact();
+            if (slots == order.length) {
+                order = Arrays.copyOf(order, slots * 2);
+                next = Arrays.copyOf(next, slots * 2);
+            }
+        }
+        int ordinal = card.ordinal();
+        order[slots] = (byte) ordinal;
+        next[slots] = -1;
+        if (counts[ordinal] == 0) first[ordinal] = slots;
+        else next[last[ordinal]] = slots;
+        last[ordinal] = slots++;
+        counts[ordinal]++;
+        size++;
+        encoded = null;
+    }
+
+    /**
+     * Removes the oldest copy of a card in constant time, its slot is only marked and dropped later.
+     *
+     * @param card The card to be removed.
+     * @return true if the card was in the hand, false otherwise.
+     */
+    public boolean remove(Card card) {
+        int ordinal = card.ordinal();
+        if (counts[ordinal] == 0) return false;
+        int slot = first[ordinal];
+        order[slot] = REMOVED;
+        first[ordinal] = next[slot];
+        counts[ordinal]--;
+        size--;
+        encoded = null;
+        return true;
+    }
+
+    /**
+     * Checks if the hand holds a card.
+     *
+     * @param card The card to check.
+     * @return true if at least one copy is held, false otherwise.
+     */
+    public boolean contains(Card card) {
+        return counts[card.ordinal()] > 0;
+    }
+
+    /**
+     * Retrieves the number of copies of a card.
+     *
+     * @param card The card to count.
+     * @return The number of copies held.
+     */
+    public int count(Card card) {
+        return counts[card.ordinal()];
+    }
+
+    /**
+     * Retrieves the card at a position of the hand.
+     *
+     * @param index The position, 0 being the oldest card.
+     * @return The card at that position.
+     * @throws IndexOutOfBoundsException If the hand has no card at that position.
+     */
+    public Card get(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException("no card at " + index);
+        compact();
+        return CARDS[order[index]];
+    }
+
+    /**
+     * Retrieves the number of cards held.
+     *
+     * @return The size of the hand.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks if the hand is empty.
+     *
+     * @return true if no card is held, false otherwise.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes all the cards.
+     */
+    public void clear() {
+        if (size == 0) return;
+        Arrays.fill(counts, 0);
+        slots = 0;
+        size = 0;
+        encoded = null;
+    }
+
+    /**
+     * Retrieves the names of the cards separated by commas in arrival order, as sent in a "Players" update.
+     * The string is built once per change of the hand.
+     *
+     * @return The encoded hand.
+     */
+    public String encode() {
+        if (encoded != null) return encoded;
+
+        StringBuilder cards = new StringBuilder();
+        for (int i = 0; i < slots; i++) {
+            if (order[i] != REMOVED) cards.append(CARDS[order[i]].name()).append(",");
+        }
+        encoded = cards.toString();
+        return encoded;
+    }
+
+    @Override
+    public Iterator<Card> iterator() {
+        return new Iterator<>() {
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                while (index < slots && order[index] == REMOVED) index++;
+                return index < slots;
+            }
+
+            @Override
+            public Card next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                return CARDS[order[index++]];
+            }
+        };
+    }
+
+    /**
+     * Drops the slots of the removed cards, keeping the others in arrival order, and chains the copies again.
+     */
+    private void compact() {
+        if (slots == size) return;
+        int kept = 0;
+        for (int i = 0; i < slots; i++) {
+            int ordinal = order[i];
+            if (ordinal == REMOVED) continue;
+            order[kept] = (byte) ordinal;
+            next[kept] = -1;
+            if (first[ordinal] == i) first[ordinal] = kept;
+            else next[last[ordinal]] = kept;
+            last[ordinal] = kept++;
+        }
+        slots = kept;
+    }
+
+    @Override
+    public String toString() {
+        return encode();
+    }
+}
@@ -4,8 +4,6 @@ import logic.utils.Card;
 
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 public abstract class ClientPlayer extends Player {
     protected boolean canPlay;
@@ -24,17 +22,24 @@ public abstract class ClientPlayer extends Player {
     }
 
     /**
-     * Sets the player's hand of cards based on the given string representation of cards.
-     * The string should contain the names of the cards separated by commas.
+     * Sets the player's hand of cards.
      *
-     * @param cards A string representation of the cards in the player's hand.
-     *              Each card should be represented by its name, separated by commas.
+     * @param cards The cards in the player's hand.
      */
-    public void setCards(String cards) {
-        String[] rawCards;
-        if (cards.isEmpty()) rawCards = new String[0];
-        else rawCards = cards.split(",");
-        hand = Stream.of(rawCards).map(Card::valueOf).collect(Collectors.toList());
+    public void setCards(List<Card> cards) {
+        hand.clear();
+        for (Card card : cards) hand.add(card);
+    }
+
+    /**
+     * Updates the player's hand with the changes sent by the server.
+     *
+     * @param added   The cards added.
+     * @param removed The cards removed.
+     */
+    public void applyDelta(List<Card> added, List<Card> removed) {
+        for (Card card : removed) hand.remove(card);
+        for (Card card : added) hand.add(card);
     }
 
     /**
@@ -58,6 +63,21 @@ public abstract class ClientPlayer extends Player {
         return sb.toString();
     }
 
+    /**
+     * Follows the turns of the game, for players keeping track of the other players.
+     *
+     * @param previous The name of the player whose turn ended.
+     * @param current  The name of the player whose turn starts.
+     */
+    public void observeTurn(String previous, String current) {}
+
+    /**
+     * Reads a notification of the server, for players keeping track of what happens in the game.
+     *
+     * @param message The message of the notification.
+     */
+    public void observe(String message) {}
+
     /**
      * Represents the end of a player's turn.
      * This method should be implemented by the player to handle any necessary actions at the end of their turn.
@@ -1,44 +1,178 @@
 package logic.utils.players;
 
+import logic.ai.Observation;
+import logic.ai.Search;
 import logic.utils.Card;
+import networking.client.ClientGame;
+import networking.protocol.ExecutionMode;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
 public class ComputerPlayer extends ClientPlayer {
 
+    // Constants
+    public static final long DEFAULT_BUDGET = 1000;
+    public static final String LOST_SUFFIX = " has lost!";
+    public static final String FUTURE_PREFIX = "Here are the 3 top cards on the deck:";
+    public static final String SHUFFLE_NOTICE = "is placing the card " + Card.SHUFFLE.name();
+
+    private static final Card[] CARDS = Card.values();
+
+    private final long budget;
+    private final List<String> seats; // every player seen, in turn order, guarded by this player
+    private Card[] knownTop;          // cards known from the top of the deck, null where unknown
+    private int knownPileSize;
+
     public ComputerPlayer(String name) {
+        this(name, DEFAULT_BUDGET);
+    }
+
+    /**
+     * Creates a player deciding with a search.
+     *
+     * @param name The name of the player.
+     * @param budget The time given to each decision, in milliseconds.
+     */
+    public ComputerPlayer(String name, long budget) {
         super(name);
+        this.budget = budget;
+        this.seats = new ArrayList<>();
+        this.knownTop = new Card[0];
+        this.knownPileSize = -1;
     }
 
     @Override
     public CompletableFuture<Card> takeTurn() {
         canPlay = true;
-        return null; // TODO
+        Observation observation = observation(opponents());
+        return CompletableFuture.supplyAsync(() -> {
+            int card = Search.takeTurn(observation, budget);
+            return card == Card.DRAW.ordinal() ? null : CARDS[card];
+        }, ExecutionMode.current().executor());
     }
 
     @Override
     public CompletableFuture<Card> chooseCard() {
-        return null; // TODO
+        Observation observation = observation(opponents());
+        return CompletableFuture.supplyAsync(
+                () -> CARDS[Search.chooseCard(observation, budget)],
+                ExecutionMode.current().executor()
+        );
     }
 
     @Override
     public CompletableFuture<String> choosePlayer(List<String> players) {
-        return null; // TODO
+        List<String> targets;
+        synchronized (this) {
+            for (String player : players) if (!seats.contains(player)) seats.add(player);
+            targets = opponents();
+        }
+        targets.retainAll(players);
+
+        Observation observation = observation(targets);
+        return CompletableFuture.supplyAsync(
+                () -> targets.get(Search.chooseTarget(observation, budget)),
+                ExecutionMode.current().executor()
+        );
     }
 
     @Override
     public CompletableFuture<Integer> choosePosition() {
-        return null; // TODO
+        Observation observation = observation(opponents());
+        int pileSize = ClientGame.pileSize;
+        return CompletableFuture.supplyAsync(() -> {
+            int depth = Search.choosePosition(observation, budget);
+            remember(Card.EXPLODING_KITTEN, depth, pileSize);
+            return pileSize - depth; // positions are counted from the bottom
+        }, ExecutionMode.current().executor());
     }
 
     @Override
-    public void confirmMove() {
-        // TODO
+    public synchronized void observeTurn(String previous, String current) {
+        if (!seats.contains(previous)) seats.add(previous);
+        if (!seats.contains(current)) seats.add(current);
     }
 
     @Override
-    public void stop() {
+    public synchronized void observe(String message) {
+        if (message.endsWith(LOST_SUFFIX)) {
+            seats.remove(message.substring(0, message.length() - LOST_SUFFIX.length()));
+        } else if (message.startsWith(FUTURE_PREFIX)) {
+            String cards = message.substring(FUTURE_PREFIX.length()).replace("\\n", "").trim();
+            knownTop = cards.isEmpty()
+                    ? new Card[0]
+                    : Arrays.stream(cards.split(", ")).map(Card::valueOf).toArray(Card[]::new);
+            knownPileSize = ClientGame.pileSize;
+        } else if (message.contains(SHUFFLE_NOTICE)) {
+            knownPileSize = -1;
+        }
+    }
 
+    /**
+     * Lists the other players still in the game, in turn order starting after this player.
+     *
+     * @return The names of the opponents.
+     */
+    private synchronized List<String> opponents() {
+        int seat = seats.indexOf(name);
+        List<String> opponents = new ArrayList<>();
+        for (int i = 1; i <= seats.size(); i++) {
+            String player = seats.get((seat + i) % seats.size());
+            if (!player.equals(name)) opponents.add(player);
+        }
+        return opponents;
+    }
+
+    /**
+     * Builds what the player knows for a search.
+     *
+     * @param opponents The opponents the search has to consider.
+     * @return The observation.
+     */
+    private Observation observation(List<String> opponents) {
+        return new Observation(hand, ClientGame.pileSize, opponents, known(ClientGame.pileSize));
+    }
+
+    /**
+     * Retrieves the cards still known from the top of the deck, the cards drawn since they were seen are dropped.
+     *
+     * @param pileSize The current number of cards in the deck.
+     * @return The known cards from the top, null where unknown.
+     */
+    private synchronized Card[] known(int pileSize) {
+        int drawn = knownPileSize - pileSize;
+        if (knownPileSize < 0 || drawn < 0 || drawn >= knownTop.length) return new Card[0];
+        return Arrays.copyOfRange(knownTop, drawn, knownTop.length);
+    }
+
+    /**
+     * Remembers a card put in the deck by this player.
+     *
+     * @param card The card put in the deck.
+     * @param depth Its position from the top.
+     * @param pileSize The number of cards in the deck before.
+     */
+    private synchronized void remember(Card card, int depth, int pileSize) {
+        Card[] known = known(pileSize);
+        Card[] updated = new Card[Math.max(known.length + 1, depth + 1)];
+        for (int i = 0, from = 0; i < updated.length; i++) {
+            if (i == depth) updated[i] = card;
+            else if (from < known.length) updated[i] = known[from++];
+        }
+        knownTop = updated;
+        knownPileSize = pileSize + 1;
+    }
+
+    @Override
+    public void confirmMove() {
+        // nothing to show
+    }
+
+    @Override
+    public synchronized void stop() {
+        seats.clear();
     }
 }
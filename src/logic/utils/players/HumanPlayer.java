@@ -5,61 +5,67 @@ import networking.client.ClientGame;
 import networking.protocol.Command;
 import networking.protocol.Handler;
 
-import java.io.*;
 import java.util.List;
-import java.util.Scanner;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
 import java.util.stream.Stream;
 
+/**
+ * Player answering the prompts of the game from the console. The lines are read by the single console reader
+ * of the client and handed to {@link #handleInput}, each prompt registers what it accepts and completes
+ * once a valid line comes, no thread ever waits for a prompt.
+ */
 public class HumanPlayer extends ClientPlayer {
 
-    private final PipedInputStream readingInput;
-    private final PrintWriter readingOutput;
-    private final AtomicBoolean needInput;
-    private CompletableFuture<?> inputRequest;
+    private final AtomicReference<Prompt<?>> prompt;
 
-    public HumanPlayer(String name) throws IOException {
+    public HumanPlayer(String name) {
         super(name);
-        PipedOutputStream pipedOutputStream = new PipedOutputStream();
-        readingInput = new PipedInputStream(pipedOutputStream);
-        readingOutput = new PrintWriter(pipedOutputStream);
-        needInput = new AtomicBoolean(false);
+        prompt = new AtomicReference<>();
     }
 
     /**
-     * Handles the input provided by the user.
+     * Handles a line typed by the user, the answer to the current prompt if there is one.
      *
      * @param input The input provided by the user.
+     * @param handler The connection to the server.
      */
     public void handleInput(String input, Handler handler) {
-        if (needInput.get()) {
-            readingOutput.println(input);
-            readingOutput.flush();
+        Prompt<?> current = prompt.get();
+        if (current != null) {
+            if (current.accept(input)) prompt.compareAndSet(current, null);
+            else System.out.print(">> ");
             return;
         }
 
-        if (input.equalsIgnoreCase("nope") && hand.contains(Card.NOPE)) {
-            hand.remove(Card.NOPE);
-            handler.sendCommand(Command.MOVE, Card.NOPE.name());
-        }
+        // the server sends the updated hand back
+        if (input.equalsIgnoreCase("nope") && hand.contains(Card.NOPE)) handler.sendCommand(Command.MOVE, Card.NOPE.name());
     }
 
     /**
-     * Frees any ongoing input request by canceling it and setting the needInput flag to false.
-     * This method does nothing if there is no ongoing input request.
+     * Registers a prompt as the receiver of the next lines, in place of any prompt still waiting.
+     *
+     * @param parser Turns a line into the answer, null if the line is not a valid answer.
+     * @return The answer, completed by the first valid line.
      */
-    private void freeRequest() {
-        if (inputRequest == null || inputRequest.isDone()) return;
-        inputRequest.cancel(true);
-
-        // free the lock created by the scanner
-        InputStream in = System.in;
-        System.setIn(new ByteArrayInputStream("\n".getBytes()));
-        System.setIn(in);
+    private <T> CompletableFuture<T> ask(Function<String, T> parser) {
+        Prompt<T> next = new Prompt<>(parser);
+        Prompt<?> previous = prompt.getAndSet(next);
+        if (previous != null) previous.answer.cancel(false);
+        System.out.print(">> ");
+        return next.answer;
+    }
 
+    /**
+     * Drops the prompt waiting for an answer, if any, when the server no longer waits for it.
+     */
+    private void freeRequest() {
+        Prompt<?> previous = prompt.getAndSet(null);
+        if (previous == null) return;
+        previous.answer.cancel(false);
         System.out.println();
-        needInput.set(false);
     }
 
     /**
@@ -82,41 +88,18 @@ public class HumanPlayer extends ClientPlayer {
         canPlay = true;
         freeRequest();
         System.out.println("Choose a card to play by number/name or \"draw\" a card");
-        inputRequest = CompletableFuture.supplyAsync(() -> {
-            needInput.set(true);
-            Scanner scanner = new Scanner(readingInput);
-            Card card = null;
-            while (card == null) {
-                System.out.print(">> ");
-                String input = scanner.nextLine();
-                if(input.equalsIgnoreCase("draw")) break;
-                card = getCardFromHand(input);
-            }
-            needInput.set(false);
-
-            return card;
-        });
-        return (CompletableFuture<Card>) inputRequest;
+        return ask(input -> {
+            if (input.equalsIgnoreCase("draw")) return Optional.<Card>empty(); // the answer without a card
+            Card card = getCardFromHand(input);
+            return card == null ? null : Optional.of(card);
+        }).thenApply(card -> card.orElse(null));
     }
 
     @Override
     public CompletableFuture<Card> chooseCard() {
         freeRequest();
         System.out.println("Choose a card to give");
-        inputRequest = CompletableFuture.supplyAsync(() -> {
-            needInput.set(true);
-            Scanner scanner = new Scanner(readingInput);
-            Card card = null;
-            while (card == null) {
-                System.out.print(">> ");
-                String input = scanner.nextLine();
-                card = getCardFromHand(input);
-            }
-            needInput.set(false);
-
-            return card;
-        });
-        return (CompletableFuture<Card>) inputRequest;
+        return ask(this::getCardFromHand);
     }
 
     /**
@@ -152,21 +135,7 @@ public class HumanPlayer extends ClientPlayer {
     public CompletableFuture<String> choosePlayer(List<String> players) {
         freeRequest();
         System.out.println("Please choose a player that needs to make you a favor: " + String.join(", ", players));
-        inputRequest = CompletableFuture.supplyAsync(() -> {
-            needInput.set(true);
-            Scanner scanner = new Scanner(readingInput);
-            String player = null;
-            while (player == null) {
-                System.out.print(">> ");
-                String input = scanner.nextLine();
-                if (players.stream().noneMatch(p -> p.equalsIgnoreCase(input))) continue;
-                player = input;
-            }
-            needInput.set(false);
-
-            return player;
-        });
-        return (CompletableFuture<String>) inputRequest;
+        return ask(input -> players.stream().filter(player -> player.equalsIgnoreCase(input)).findFirst().orElse(null));
     }
 
     @Override
@@ -180,24 +149,14 @@ public class HumanPlayer extends ClientPlayer {
                 + ClientGame.pileSize
                 + ")"
         );
-        inputRequest = CompletableFuture.supplyAsync(() -> {
-            needInput.set(true);
-            Scanner scanner = new Scanner(readingInput);
-            int index = -1;
-            while (index == -1) {
-                System.out.print(">> ");
-                String input = scanner.nextLine();
-
-                try {
-                    index = Integer.parseInt(input);
-                    if (index < 0 || index > ClientGame.pileSize) index = -1;
-                } catch (NumberFormatException ignore) {}
+        return ask(input -> {
+            try {
+                int index = Integer.parseInt(input.trim());
+                return index < 0 || index > ClientGame.pileSize ? null : index;
+            } catch (NumberFormatException ignore) {
+                return null;
             }
-            needInput.set(false);
-
-            return index;
         });
-        return (CompletableFuture<Integer>) inputRequest;
     }
 
     @Override
@@ -213,7 +172,34 @@ public class HumanPlayer extends ClientPlayer {
 
     @Override
     public void stop() {
+        freeRequest();
         System.out.println("The game is over for you at least");
     }
 
+    /**
+     * Prompt waiting for a valid line.
+     *
+     * @param <T> The type of the answer.
+     */
+    private static final class Prompt<T> {
+
+        private final Function<String, T> parser;
+        private final CompletableFuture<T> answer;
+
+        private Prompt(Function<String, T> parser) {
+            this.parser = parser;
+            this.answer = new CompletableFuture<>();
+        }
+
+        /**
+         * Completes the prompt if the line is a valid answer.
+         *
+         * @param input The line typed by the user.
+         * @return true if the prompt is answered, false if the line is not valid.
+         */
+        private boolean accept(String input) {
+            T value = parser.apply(input);
+            return value != null && answer.complete(value);
+        }
+    }
 }
\ No newline at end of file
@@ -1,17 +1,15 @@
 package logic.utils.players;
 
 import logic.utils.Card;
-
-import java.util.ArrayList;
-import java.util.List;
+import logic.utils.Hand;
 
 public class Player {
     protected String name;        // Player name
-    protected List<Card> hand;    // Player's hand of cards
+    protected final Hand hand;    // Player's hand of cards
 
     public Player(String name) {
         this.name = name;
-        this.hand = new ArrayList<>();
+        this.hand = new Hand();
     }
 
     public String getName() {
@@ -25,18 +23,15 @@ public class Player {
      * @return A string representation of the cards in the player's hand.
      */
     public String getCards() {
-        StringBuilder cards = new StringBuilder();
-        hand.forEach((card) -> cards.append(card.name()).append(","));
-
-        return cards.toString();
+        return hand.encode();
     }
 
     /**
      * Retrieves the player's hand of cards.
      *
-     * @return The list of cards in the player's hand.
+     * @return The hand of the player.
      */
-    public List<Card> getHand() {
+    public Hand getHand() {
         return hand;
     }
 
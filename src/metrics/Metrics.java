@@ -0,0 +1,239 @@
+package metrics;
+
+import logic.Deadlines;
+import networking.protocol.Command;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Instrumentation of the process, recorded with striped counters so the game loops and the connections
+ * never contend on them. Read over JMX through {@link ServerMetrics} and as plain text through {@link MetricsEndpoint}.
+ */
+public class Metrics {
+
+    public static final String PREFIX = "kitten_";
+
+    private static final Histogram[] COMMAND_LATENCIES = new Histogram[Command.values().length];
+    private static final Histogram GAME_DURATIONS = new Histogram();
+    private static final LongAdder OUTBOUND_MESSAGES = new LongAdder();
+    private static final LongAdder OUTBOUND_BYTES = new LongAdder();
+    private static final LongAdder OUTBOUND_FLUSHES = new LongAdder();
+    private static final LongAdder CHAT_DROPPED = new LongAdder();
+    private static final LongAdder STATES_COALESCED = new LongAdder();
+    private static final LongAdder SLOW_CONSUMERS_DISCONNECTED = new LongAdder();
+    private static final LongAdder NOPE_WINDOWS_SCHEDULED = new LongAdder();
+    private static final LongAdder NOPE_WINDOWS_FIRED = new LongAdder();
+    private static final LongAdder[] DEADLINES_EXPIRED = new LongAdder[Deadlines.Interaction.values().length];
+    private static final Map<String, LongSupplier> GAUGES = new ConcurrentSkipListMap<>();
+
+    static {
+        for (int i = 0; i < COMMAND_LATENCIES.length; i++) COMMAND_LATENCIES[i] = new Histogram();
+        for (int i = 0; i < DEADLINES_EXPIRED.length; i++) DEADLINES_EXPIRED[i] = new LongAdder();
+    }
+
+    private Metrics() {}
+
+    /**
+     * Records the time from the reception of a command to the end of its handling, on the game loop
+     * for the commands handled by a game.
+     *
+     * @param command The command handled.
+     * @param received The time the command was received at, from System.nanoTime.
+     */
+    public static void commandHandled(Command command, long received) {
+        COMMAND_LATENCIES[command.ordinal()].record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - received));
+    }
+
+    /**
+     * Counts a message sent on a connection.
+     *
+     * @param bytes The length of the encoded message.
+     */
+    public static void messageSent(int bytes) {
+        OUTBOUND_MESSAGES.increment();
+        OUTBOUND_BYTES.add(bytes);
+    }
+
+    /**
+     * Counts a write of the queued messages of a connection to its socket.
+     */
+    public static void flushed() {
+        OUTBOUND_FLUSHES.increment();
+    }
+
+    /**
+     * Counts a chat message not sent to a client lagging behind.
+     */
+    public static void chatDropped() {
+        CHAT_DROPPED.increment();
+    }
+
+    /**
+     * Counts a full state replacing the previous one still queued for a client lagging behind.
+     */
+    public static void stateCoalesced() {
+        STATES_COALESCED.increment();
+    }
+
+    /**
+     * Counts a client disconnected because its outbound queue was full.
+     */
+    public static void slowConsumerDisconnected() {
+        SLOW_CONSUMERS_DISCONNECTED.increment();
+    }
+
+    /**
+     * Counts a nope window opened.
+     */
+    public static void nopeWindowScheduled() {
+        NOPE_WINDOWS_SCHEDULED.increment();
+    }
+
+    /**
+     * Counts a nope window closed by its delay rather than cancelled.
+     */
+    public static void nopeWindowFired() {
+        NOPE_WINDOWS_FIRED.increment();
+    }
+
+    /**
+     * Counts a player who did not answer in time, the game having acted for them.
+     *
+     * @param interaction The interaction the game was waiting for.
+     */
+    public static void deadlineExpired(Deadlines.Interaction interaction) {
+        DEADLINES_EXPIRED[interaction.ordinal()].increment();
+    }
+
+    /**
+     * Records the duration of a game that has ended.
+     *
+     * @param millis The time from its start to its end, in milliseconds.
+     */
+    public static void gameEnded(long millis) {
+        GAME_DURATIONS.record(millis);
+    }
+
+    /**
+     * Registers a value read when the metrics are, such as the number of connections.
+     *
+     * @param name The name of the value, without the prefix.
+     * @param gauge The supplier of the value.
+     */
+    public static void gauge(String name, LongSupplier gauge) {
+        GAUGES.put(name, gauge);
+    }
+
+    public static Histogram getCommandLatencies(Command command) {
+        return COMMAND_LATENCIES[command.ordinal()];
+    }
+
+    public static long getDeadlinesExpired(Deadlines.Interaction interaction) {
+        return DEADLINES_EXPIRED[interaction.ordinal()].sum();
+    }
+
+    public static Histogram getGameDurations() {
+        return GAME_DURATIONS;
+    }
+
+    public static long getOutboundMessages() {
+        return OUTBOUND_MESSAGES.sum();
+    }
+
+    public static long getOutboundBytes() {
+        return OUTBOUND_BYTES.sum();
+    }
+
+    public static long getOutboundFlushes() {
+        return OUTBOUND_FLUSHES.sum();
+    }
+
+    public static long getChatDropped() {
+        return CHAT_DROPPED.sum();
+    }
+
+    public static long getStatesCoalesced() {
+        return STATES_COALESCED.sum();
+    }
+
+    public static long getSlowConsumersDisconnected() {
+        return SLOW_CONSUMERS_DISCONNECTED.sum();
+    }
+
+    public static long getNopeWindowsScheduled() {
+        return NOPE_WINDOWS_SCHEDULED.sum();
+    }
+
+    public static long getNopeWindowsFired() {
+        return NOPE_WINDOWS_FIRED.sum();
+    }
+
+    /**
+     * Reads every registered gauge.
+     *
+     * @return The values by name, sorted by name.
+     */
+    public static Map<String, Long> readGauges() {
+        Map<String, Long> values = new ConcurrentSkipListMap<>();
+        GAUGES.forEach((name, gauge) -> values.put(name, gauge.getAsLong()));
+        return values;
+    }
+
+    /**
+     * Writes all the metrics in the Prometheus text format.
+     *
+     * @return The metrics, one value per line.
+     */
+    public static String scrape() {
+        StringBuilder text = new StringBuilder();
+        counter(text, "outbound_messages_total", getOutboundMessages());
+        counter(text, "outbound_bytes_total", getOutboundBytes());
+        counter(text, "outbound_flushes_total", getOutboundFlushes());
+        counter(text, "outbound_chat_dropped_total", getChatDropped());
+        counter(text, "outbound_states_coalesced_total", getStatesCoalesced());
+        counter(text, "slow_consumers_disconnected_total", getSlowConsumersDisconnected());
+        counter(text, "nope_windows_scheduled_total", getNopeWindowsScheduled());
+        counter(text, "nope_windows_fired_total", getNopeWindowsFired());
+        String deadlines = PREFIX + "deadlines_expired_total";
+        text.append("# TYPE ").append(deadlines).append(" counter\n");
+        for (Deadlines.Interaction interaction : Deadlines.Interaction.values()) {
+            text.append(deadlines).append("{interaction=\"").append(interaction).append("\"} ")
+                    .append(getDeadlinesExpired(interaction)).append('\n');
+        }
+        readGauges().forEach((name, value) -> {
+            text.append("# TYPE ").append(PREFIX).append(name).append(" gauge\n");
+            text.append(PREFIX).append(name).append(' ').append(value).append('\n');
+        });
+
+        String latency = PREFIX + "command_latency_microseconds";
+        text.append("# TYPE ").append(latency).append(" summary\n");
+        for (Command command : Command.values()) {
+            Histogram histogram = getCommandLatencies(command);
+            if (histogram.getCount() > 0) summary(text, latency, "command=\"" + command + "\"", histogram);
+        }
+        String durations = PREFIX + "game_duration_milliseconds";
+        text.append("# TYPE ").append(durations).append(" summary\n");
+        summary(text, durations, "", GAME_DURATIONS);
+        return text.toString();
+    }
+
+    private static void counter(StringBuilder text, String name, long value) {
+        text.append("# TYPE ").append(PREFIX).append(name).append(" counter\n");
+        text.append(PREFIX).append(name).append(' ').append(value).append('\n');
+    }
+
+    private static void summary(StringBuilder text, String name, String labels, Histogram histogram) {
+        String separator = labels.isEmpty() ? "" : ",";
+        for (double quantile : new double[]{0.5, 0.9, 0.99, 1}) {
+            text.append(name).append('{').append(labels).append(separator).append("quantile=\"").append(quantile).append("\"} ")
+                    .append(quantile == 1 ? histogram.getMax() : histogram.getPercentile(quantile)).append('\n');
+        }
+        String suffix = labels.isEmpty() ? " " : "{" + labels + "} ";
+        text.append(name).append("_count").append(suffix).append(histogram.getCount()).append('\n');
+        text.append(name).append("_sum").append(suffix).append(histogram.getSum()).append('\n');
+    }
+}
@@ -0,0 +1,47 @@
+package metrics;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.concurrent.Executors;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Serves the {@link Metrics} as plain text on "/metrics" with the HTTP server of the JDK, on a single daemon thread.
+ */
+public class MetricsEndpoint {
+
+    public static final int DEFAULT_PORT = 25501;
+    public static final String PATH = "/metrics";
+
+    private MetricsEndpoint() {}
+
+    /**
+     * Starts serving the metrics.
+     *
+     * @param port The port to listen to.
+     * @return The HTTP server.
+     * @throws IOException If the port cannot be bound.
+     */
+    public static HttpServer start(int port) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress(port), 0);
+        server.createContext(PATH, exchange -> {
+            byte[] body = Metrics.scrape().getBytes(UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream output = exchange.getResponseBody()) {
+                output.write(body);
+            }
+        });
+        server.setExecutor(Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "metrics-endpoint");
+            thread.setDaemon(true);
+            return thread;
+        }));
+        server.start();
+        return server;
+    }
+}
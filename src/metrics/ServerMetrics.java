@@ -0,0 +1,124 @@
+package metrics;
+
+import logic.Deadlines;
+import networking.protocol.Command;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.ToLongFunction;
+
+/**
+ * Exposes the {@link Metrics} of the process over JMX.
+ */
+public class ServerMetrics implements ServerMetricsMXBean {
+
+    public static final String NAME = "explodingkitten:type=ServerMetrics";
+
+    /**
+     * Registers the metrics in the platform MBean server, once.
+     */
+    public static void register() {
+        try {
+            ObjectName name = new ObjectName(NAME);
+            if (!ManagementFactory.getPlatformMBeanServer().isRegistered(name))
+                ManagementFactory.getPlatformMBeanServer().registerMBean(new ServerMetrics(), name);
+        } catch (JMException e) {
+            System.out.println("Could not register the metrics: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public long getOutboundMessages() {
+        return Metrics.getOutboundMessages();
+    }
+
+    @Override
+    public long getOutboundBytes() {
+        return Metrics.getOutboundBytes();
+    }
+
+    @Override
+    public long getOutboundFlushes() {
+        return Metrics.getOutboundFlushes();
+    }
+
+    @Override
+    public long getChatDropped() {
+        return Metrics.getChatDropped();
+    }
+
+    @Override
+    public long getStatesCoalesced() {
+        return Metrics.getStatesCoalesced();
+    }
+
+    @Override
+    public long getSlowConsumersDisconnected() {
+        return Metrics.getSlowConsumersDisconnected();
+    }
+
+    @Override
+    public long getNopeWindowsScheduled() {
+        return Metrics.getNopeWindowsScheduled();
+    }
+
+    @Override
+    public long getNopeWindowsFired() {
+        return Metrics.getNopeWindowsFired();
+    }
+
+    @Override
+    public Map<String, Long> getGauges() {
+        return Metrics.readGauges();
+    }
+
+    @Override
+    public Map<String, Long> getCommandCounts() {
+        return byCommand(Histogram::getCount);
+    }
+
+    @Override
+    public Map<String, Long> getCommandLatencyMedians() {
+        return byCommand(histogram -> histogram.getPercentile(0.5));
+    }
+
+    @Override
+    public Map<String, Long> getCommandLatencyP99s() {
+        return byCommand(histogram -> histogram.getPercentile(0.99));
+    }
+
+    @Override
+    public Map<String, Long> getDeadlinesExpired() {
+        Map<String, Long> values = new TreeMap<>();
+        for (Deadlines.Interaction interaction : Deadlines.Interaction.values())
+            values.put(interaction.toString(), Metrics.getDeadlinesExpired(interaction));
+        return values;
+    }
+
+    @Override
+    public long getGamesEnded() {
+        return Metrics.getGameDurations().getCount();
+    }
+
+    @Override
+    public long getGameDurationMedian() {
+        return Metrics.getGameDurations().getPercentile(0.5);
+    }
+
+    @Override
+    public String getScrape() {
+        return Metrics.scrape();
+    }
+
+    private static Map<String, Long> byCommand(ToLongFunction<Histogram> value) {
+        Map<String, Long> values = new TreeMap<>();
+        for (Command command : Command.values()) {
+            Histogram histogram = Metrics.getCommandLatencies(command);
+            if (histogram.getCount() > 0) values.put(command.toString(), value.applyAsLong(histogram));
+        }
+        return values;
+    }
+}
@@ -0,0 +1,71 @@
+package metrics;
+
+import java.util.Map;
+
+/**
+ * Metrics of the server read over JMX, under the name "explodingkitten:type=ServerMetrics".
+ */
+public interface ServerMetricsMXBean {
+
+    long getOutboundMessages();
+
+    long getOutboundBytes();
+
+    long getOutboundFlushes();
+
+    long getChatDropped();
+
+    long getStatesCoalesced();
+
+    long getSlowConsumersDisconnected();
+
+    long getNopeWindowsScheduled();
+
+    long getNopeWindowsFired();
+
+    /**
+     * Retrieves the values read when asked, such as the active connections and games.
+     *
+     * @return The values by name.
+     */
+    Map<String, Long> getGauges();
+
+    /**
+     * Retrieves the number of commands handled by command.
+     *
+     * @return The counts by command.
+     */
+    Map<String, Long> getCommandCounts();
+
+    /**
+     * Retrieves the median time from the reception of a command to the end of its handling.
+     *
+     * @return The latencies in microseconds by command.
+     */
+    Map<String, Long> getCommandLatencyMedians();
+
+    /**
+     * Retrieves the 99th percentile of the time from the reception of a command to the end of its handling.
+     *
+     * @return The latencies in microseconds by command.
+     */
+    Map<String, Long> getCommandLatencyP99s();
+
+    /**
+     * Retrieves the number of players the game acted for after they did not answer in time.
+     *
+     * @return The counts by interaction waited for.
+     */
+    Map<String, Long> getDeadlinesExpired();
+
+    long getGamesEnded();
+
+    long getGameDurationMedian();
+
+    /**
+     * Writes all the metrics as the scrape endpoint does.
+     *
+     * @return The metrics in the Prometheus text format.
+     */
+    String getScrape();
+}
@@ -0,0 +1,261 @@
+package networking.client;
+
+import logic.simulation.Strategy;
+import logic.utils.Card;
+import logic.utils.Hand;
+import networking.protocol.Args;
+import networking.protocol.Command;
+import networking.protocol.Error;
+import networking.protocol.Feature;
+import networking.protocol.Handler;
+import networking.protocol.WireFormat;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static networking.server.ServerGame.PORT;
+
+/**
+ * Scripted client of the load generator, playing one game after another on new connections with a {@link Strategy}.
+ * It answers the commands itself like an in-memory agent does, so many sessions share one process,
+ * and measures the time between each of its requests and the answer of the server to that request.
+ */
+public class BotSession extends Handler {
+
+    // parts of the notification of a nope window: "<name> is placing the card <card> hurry if you want to nope it!"
+    public static final String PLACING = " is placing the card ";
+    public static final String NOPE_NOTICE = " hurry if you want to nope it!";
+    // longest wait for the server, a session waiting longer gives its game up
+    public static final int READ_TIMEOUT = 30_000;
+    private static final AtomicInteger NEXT_ID = new AtomicInteger();
+
+    private final InetAddress address;
+    private final Strategy strategy;
+    private final Set<Feature> features;
+    private final LoadGenerator report;
+    private final long deadline;
+
+    private Socket socket;
+    private volatile boolean closed;
+    private String name;
+    private final Hand hand = new Hand();
+    private int pileSize;
+    private boolean canPlay;
+    private Card played;
+    private boolean placing; // holds a defused kitten, a refused placement is retried once
+
+    // request waiting for its answer, only used by the thread of the session
+    private Command pending;
+    private long sentAt;
+
+    /**
+     * @param address The address of the server.
+     * @param strategy The decisions of the bot.
+     * @param features The features asked for in the hello.
+     * @param report The load generator collecting the measures.
+     * @param deadline The time after which no new game is started, from System.nanoTime.
+     */
+    public BotSession(InetAddress address, Strategy strategy, Set<Feature> features, LoadGenerator report, long deadline) {
+        this.address = address;
+        this.strategy = strategy;
+        this.features = features;
+        this.report = report;
+        this.deadline = deadline;
+    }
+
+    /**
+     * Plays games until the deadline, a game being over for the bot once it has lost or won.
+     */
+    @Override
+    public void run() {
+        while (System.nanoTime() < deadline) {
+            try {
+                connect();
+                readFrames();
+            } catch (SocketTimeoutException e) {
+                report.timedOut();
+            } catch (IOException e) {
+                report.connectionFailed();
+            } finally {
+                disconnect();
+            }
+        }
+    }
+
+    private void connect() throws IOException {
+        closed = false;
+        canPlay = false;
+        played = null;
+        placing = false;
+        pending = null;
+        hand.clear();
+        frameReader.reset();
+        setFormat(WireFormat.TEXT);
+
+        socket = new Socket(address, PORT);
+        socket.setTcpNoDelay(true);
+        socket.setSoTimeout(READ_TIMEOUT);
+        input = socket.getInputStream();
+        output = new BufferedOutputStream(socket.getOutputStream());
+
+        name = "bot" + Integer.toString(NEXT_ID.getAndIncrement(), 36);
+        if (features.isEmpty()) request(Command.HELLO, name);
+        else request(Command.HELLO, name, Feature.join(features));
+    }
+
+    private void disconnect() {
+        closed = true;
+        try {
+            if (socket != null) socket.close();
+        } catch (IOException ignored) {}
+    }
+
+    @Override
+    protected boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Sends a request and starts measuring its round trip, until the server answers it or refuses it.
+     *
+     * @param command The command to be sent.
+     * @param args Additional arguments for the command, if any.
+     */
+    private void request(Command command, String... args) {
+        pending = command;
+        sentAt = System.nanoTime();
+        sendCommand(command, args);
+    }
+
+    /**
+     * Ends the game for the bot, the connection is closed and a new one plays the next game.
+     */
+    private void leave() {
+        sendCommand(Command.EXIT);
+        flush();
+        closed = true;
+    }
+
+    /**
+     * Checks if a message of the server is the answer to a request, the other messages may come in between.
+     *
+     * @param request The request waiting for its answer.
+     * @param reply The command received.
+     * @return true if the command ends the round trip of the request, false otherwise.
+     */
+    private static boolean answers(Command request, Command reply) {
+        switch (request) {
+            case HELLO:
+                return reply == Command.WELCOME;
+            case MOVE: // a favor asks for its target instead of confirming
+                return reply == Command.EXECUTEDMOVE || reply == Command.HAND;
+            case CARD: // drawing a kitten asks for its position or ends the game
+                return reply == Command.EXECUTEDMOVE || reply == Command.EXPLODINGKITTEN || reply == Command.GAMEOVER;
+            case TARGET: // the target is told to choose a card, unless it has none
+                return reply == Command.NOTIFY || reply == Command.EXECUTEDMOVE;
+            default: // GIVE and PLACE
+                return reply == Command.EXECUTEDMOVE;
+        }
+    }
+
+    @Override
+    protected void dispatch(Command command, Args args) {
+        if (pending != null && answers(pending, command)) {
+            report.roundTrip(pending, System.nanoTime() - sentAt);
+            pending = null;
+        }
+
+        switch (command) {
+            case WELCOME:
+                if (args.length() >= 2 && Feature.parse(args.get(1)).contains(Feature.BINARY)) setFormat(WireFormat.BINARY);
+                break;
+            case PLAYERS:
+                hand.clear();
+                for (Card card : args.cards(0)) hand.add(card);
+                pileSize = args.number(2);
+                break;
+            case NEXT:
+                canPlay = name.equals(args.get(1));
+                if (canPlay) play();
+                break;
+            case EXECUTEDMOVE:
+                placing = false;
+                if (canPlay) play();
+                break;
+            case HAND:
+                request(Command.TARGET, strategy.chooseTarget(Arrays.asList(args.get(0).split(", "))));
+                break;
+            case DEMAND:
+                if (!hand.isEmpty()) request(Command.GIVE, strategy.chooseCard(hand).name());
+                break;
+            case EXPLODINGKITTEN:
+                placing = true;
+                request(Command.PLACE, String.valueOf(strategy.choosePosition(pileSize)));
+                break;
+            case NOTIFY:
+                String notice = args.get(0);
+                if (notice.startsWith("You won")) report.gameCompleted();
+                else if (notice.endsWith(NOPE_NOTICE) && !notice.startsWith(name + PLACING) && hand.contains(Card.NOPE)) {
+                    String card = notice.substring(notice.indexOf(PLACING) + PLACING.length(), notice.length() - NOPE_NOTICE.length());
+                    if (strategy.nope(hand, Card.valueOf(card))) request(Command.MOVE, Card.NOPE.name());
+                }
+                break;
+            case GAMEOVER:
+                canPlay = false;
+                placing = false;
+                leave();
+                break;
+        }
+    }
+
+    /**
+     * Counts an error of the server, a refused move is replaced by a draw to keep the game going
+     * and a refused placement is retried once on top of the deck, always a valid position.
+     *
+     * @param error The error received.
+     */
+    @Override
+    protected void handleError(Error error) {
+        Command refused = pending;
+        if (pending != null) {
+            report.roundTrip(pending, System.nanoTime() - sentAt);
+            pending = null;
+        }
+        report.error(error);
+        if (refused == Command.PLACE && placing) {
+            placing = false;
+            request(Command.PLACE, "0");
+            return;
+        }
+        if (error == Error.E6) canPlay = false;
+        if (!canPlay || played == null) return;
+
+        played = null;
+        request(Command.CARD);
+    }
+
+    @Override
+    protected void handleInvalid(IllegalArgumentException e) {
+        report.error(null);
+    }
+
+    @Override
+    protected void handleWriteError(IOException e) {
+        disconnect();
+    }
+
+    /**
+     * Plays the card chosen by the strategy, or draws a card.
+     */
+    private void play() {
+        played = strategy.takeTurn(hand);
+        if (played == null) request(Command.CARD);
+        else request(Command.MOVE, played.name());
+    }
+}
@@ -3,52 +3,129 @@ package networking.client;
 import logic.utils.Card;
 import logic.utils.players.*;
 import networking.protocol.Command;
+import networking.protocol.ExecutionMode;
+import networking.protocol.Feature;
 
-import java.io.IOException;
-import java.util.Scanner;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
 import java.util.concurrent.CountDownLatch;
 
 public class ClientGame {
     private static boolean isHuman = true;
+    private static long budget = ComputerPlayer.DEFAULT_BUDGET;
+    private static final Set<Feature> features = EnumSet.noneOf(Feature.class);
     private static ClientPlayer player;
+    private static volatile String token;
+    private static boolean isSpectator = false;
+    private static int watchedRoom = -1;
     private static final CountDownLatch isInit = new CountDownLatch(1);
-    private static final Scanner scanner = new Scanner(System.in);
 
     // Informative data
     public static Card lastCardPlayed;
     public static int pileSize;
+    public static int sequence;
+    public static boolean syncing; // a "Sync" has been sent and its full update has not arrived yet
 
     public static void main(String[] args) throws InterruptedException {
-        if (args.length != 1) throw new RuntimeException("missing argument for player type.");
+        if (args.length < 1) throw new RuntimeException("missing argument for player type.");
         if (args[0].equals("-ai")) isHuman = false;
+        int budgetIndex = Arrays.asList(args).indexOf("-budget");
+        if (budgetIndex >= 0 && budgetIndex + 1 < args.length) budget = Long.parseLong(args[budgetIndex + 1]);
+        if (Arrays.asList(args).contains("-binary")) features.add(Feature.BINARY);
+        if (Arrays.asList(args).contains("-delta")) features.add(Feature.DELTA);
+        int watchIndex = Arrays.asList(args).indexOf("-watch");
+        if (watchIndex >= 0) {
+            isSpectator = true;
+            if (watchIndex + 1 < args.length && args[watchIndex + 1].matches("\\d+")) watchedRoom = Integer.parseInt(args[watchIndex + 1]);
+        }
+        ExecutionMode.select(args);
 
         ServerHandler handler = new ServerHandler();
-        new Thread(handler).start();
+        ExecutionMode.current().newThread(handler).start();
 
         isInit.await();
         if (!(player instanceof HumanPlayer)) return;
         HumanPlayer humanPlayer = (HumanPlayer) player;
         String input;
-        while ((input = scanner.nextLine()) != null) {
-            if (input.startsWith("!"))
+        while ((input = Console.nextLine()) != null) {
+            if (input.startsWith("!")) {
                 handler.sendCommand(
                     Command.CHAT,
                     player.getName(),
                     input.replaceFirst("!", "")
                 );
+                continue; // a chat message never answers a prompt
+            }
             humanPlayer.handleInput(input, handler);
         }
     }
 
     /**
-     * Gets user input from the console. ONly useful to initialize
+     * Gets user input from the console. Only useful to initialize, the game then takes the lines in the main loop.
+     * The client stops if the input is closed.
      *
      * @param prompt The prompt message displayed to the user.
-     * @return The user input as a String.
+     * @return The first word of the next line typed.
      */
     public static String getUserInput(String prompt) {
         System.out.print(prompt + "\n>> ");
-        return scanner.next();
+        try {
+            String line;
+            while ((line = Console.nextLine()) != null) {
+                if (!line.isBlank()) return line.trim().split("\\s+")[0];
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        System.out.println("The input has been closed");
+        System.exit(0);
+        return null;
+    }
+
+    /**
+     * Retrieves the features to ask for during the handshake.
+     *
+     * @return The features given as arguments, "-binary" and "-delta".
+     */
+    public static Set<Feature> getFeatures() {
+        return features;
+    }
+
+    /**
+     * Checks if the client only watches a game instead of playing.
+     *
+     * @return true if "-watch" was given as argument, false otherwise.
+     */
+    public static boolean isSpectator() {
+        return isSpectator;
+    }
+
+    /**
+     * Retrieves the room the spectator asked to watch.
+     *
+     * @return The id of the room, or -1 to watch any running game.
+     */
+    public static int getWatchedRoom() {
+        return watchedRoom;
+    }
+
+    /**
+     * Retrieves the token of the session given by the server, presented to take the seat back after a dropped connection.
+     *
+     * @return The session token, or null if there is no game to come back to.
+     */
+    public static String getToken() {
+        return token;
+    }
+
+    /**
+     * Sets the token of the session given by the server.
+     *
+     * @param value The session token, null once the game is over for the player.
+     */
+    public static void setToken(String value) {
+        token = value;
     }
 
     /**
@@ -61,23 +138,19 @@ public class ClientGame {
     /**
      * Sets the last card played
      *
-     * @param rawCard The type of the last card played.
+     * @param card The last card played, null if none has been played.
      */
-    public static void setLastCardPlayed(String rawCard) {
-        if (rawCard.isEmpty()) {
-            lastCardPlayed = null;
-            return;
-        }
-        lastCardPlayed = Card.valueOf(rawCard);
+    public static void setLastCardPlayed(Card card) {
+        lastCardPlayed = card;
     }
 
     /**
      * Sets the size of the pile.
      *
-     * @param num The size of the pile as a String.
+     * @param num The size of the pile.
      */
-    public static void setPileSize(String num) {
-        pileSize = Integer.parseInt(num);
+    public static void setPileSize(int num) {
+        pileSize = num;
     }
 
     /**
@@ -86,11 +159,9 @@ public class ClientGame {
      * @param name the name of the player
      */
     public static void setName(String name) {
-        if (isHuman)
-            try {
-                player = new HumanPlayer(name);
-            } catch (IOException ignored) {}
-        else player = new ComputerPlayer(name);
+        if (player != null) return; // welcomed back after a dropped connection, the player is kept
+        if (isHuman) player = new HumanPlayer(name);
+        else player = new ComputerPlayer(name, budget);
     }
 
     /**
@@ -0,0 +1,53 @@
+package networking.client;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * The only reader of the standard input of the client. A single daemon thread reads the lines as they are typed
+ * and queues them, the connection setup then the game take them from the queue one at a time, so a line
+ * always goes to whoever asks for the next one.
+ */
+public class Console {
+
+    private static final String END = new String("end of input"); // compared by reference, never typed
+    private static final BlockingQueue<String> lines = new LinkedBlockingQueue<>();
+
+    static {
+        Thread reader = new Thread(Console::read, "console-reader");
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    private Console() {}
+
+    /**
+     * Reads the standard input line by line until it is closed.
+     */
+    private static void read() {
+        BufferedReader input = new BufferedReader(new InputStreamReader(System.in));
+        try {
+            String line;
+            while ((line = input.readLine()) != null) lines.add(line);
+        } catch (IOException e) {
+            System.out.println("Could not read the console: " + e.getMessage());
+        }
+        lines.add(END);
+    }
+
+    /**
+     * Waits for the next line typed by the user.
+     *
+     * @return The line, without its line terminator, or null once the input is closed.
+     * @throws InterruptedException If the thread is interrupted while waiting.
+     */
+    public static String nextLine() throws InterruptedException {
+        String line = lines.take();
+        if (line != END) return line;
+        lines.add(END); // every later call sees the end too
+        return null;
+    }
+}
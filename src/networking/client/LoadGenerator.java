@@ -0,0 +1,155 @@
+package networking.client;
+
+import logic.simulation.RandomStrategy;
+import metrics.Histogram;
+import networking.protocol.Command;
+import networking.protocol.Error;
+import networking.protocol.ExecutionMode;
+import networking.protocol.Feature;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Drives many bot sessions against a server from one process and reports the games completed per second,
+ * the round trip percentiles of each command and the errors, to size a server before the traffic does.
+ */
+public class LoadGenerator {
+
+    public static final int REPORT_INTERVAL = 1; // seconds
+
+    private final Histogram[] roundTrips;
+    private final LongAdder[] errors;
+    private final LongAdder invalid;
+    private final LongAdder connectionFailures;
+    private final LongAdder timeouts;
+    private final LongAdder games;
+
+    public LoadGenerator() {
+        this.roundTrips = new Histogram[Command.values().length];
+        for (int i = 0; i < roundTrips.length; i++) roundTrips[i] = new Histogram();
+        this.errors = new LongAdder[Error.values().length];
+        for (int i = 0; i < errors.length; i++) errors[i] = new LongAdder();
+        this.invalid = new LongAdder();
+        this.connectionFailures = new LongAdder();
+        this.timeouts = new LongAdder();
+        this.games = new LongAdder();
+    }
+
+    /**
+     * Opens the sessions and reports every REPORT_INTERVAL seconds until they have all finished their last game.
+     *
+     * @param args The number of sessions, the duration in seconds and the host of the server, all optional,
+     *             '-binary' to use the binary protocol and '-virtual' to run each session on a virtual thread.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        List<String> values = new ArrayList<>();
+        for (String arg : args) if (!arg.startsWith("-")) values.add(arg);
+        int sessions = values.size() > 0 ? Integer.parseInt(values.get(0)) : 1000;
+        int duration = values.size() > 1 ? Integer.parseInt(values.get(1)) : 60;
+        InetAddress address = InetAddress.getByName(values.size() > 2 ? values.get(2) : "127.0.0.1");
+        Set<Feature> features = Arrays.asList(args).contains("-binary") ? EnumSet.of(Feature.BINARY) : EnumSet.noneOf(Feature.class);
+        ExecutionMode.select(args);
+
+        LoadGenerator generator = new LoadGenerator();
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.SECONDS.toNanos(duration);
+        SplittableRandom random = new SplittableRandom();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < sessions; i++) {
+            BotSession session = new BotSession(address, new RandomStrategy(random.split()), features, generator, deadline);
+            Thread thread = ExecutionMode.current().newThread(session);
+            thread.setDaemon(true);
+            thread.start();
+            threads.add(thread);
+        }
+        System.out.println(sessions + " sessions against " + address.getHostAddress() + " for " + duration + "s");
+
+        long previous = 0;
+        while (threads.stream().anyMatch(Thread::isAlive)) {
+            Thread.sleep(TimeUnit.SECONDS.toMillis(REPORT_INTERVAL));
+            long completed = generator.games.sum();
+            System.out.printf("%6.0fs %8d games %6.0f games/s %6d errors%n",
+                    (System.nanoTime() - start) / 1e9, completed, (completed - previous) / (double) REPORT_INTERVAL, generator.getErrorCount());
+            previous = completed;
+        }
+        generator.printSummary(System.nanoTime() - start);
+    }
+
+    /**
+     * Records the time between a request and the first answer of the server.
+     *
+     * @param command The request.
+     * @param nanos The round trip, in nanoseconds.
+     */
+    public void roundTrip(Command command, long nanos) {
+        roundTrips[command.ordinal()].record(TimeUnit.NANOSECONDS.toMicros(nanos));
+    }
+
+    /**
+     * Counts an error sent by the server.
+     *
+     * @param error The error, or null for a message that is not part of the protocol.
+     */
+    public void error(Error error) {
+        if (error == null) invalid.increment();
+        else errors[error.ordinal()].increment();
+    }
+
+    /**
+     * Counts a connection that could not be opened or dropped.
+     */
+    public void connectionFailed() {
+        connectionFailures.increment();
+    }
+
+    /**
+     * Counts a session that gave its game up after waiting BotSession.READ_TIMEOUT milliseconds for the server.
+     */
+    public void timedOut() {
+        timeouts.increment();
+    }
+
+    /**
+     * Counts a game won by a bot, every game having a single winner.
+     */
+    public void gameCompleted() {
+        games.increment();
+    }
+
+    private long getErrorCount() {
+        long count = invalid.sum() + connectionFailures.sum() + timeouts.sum();
+        for (LongAdder error : errors) count += error.sum();
+        return count;
+    }
+
+    /**
+     * Prints the throughput, the round trip percentiles of each command and the errors.
+     *
+     * @param elapsed The duration of the run, in nanoseconds.
+     */
+    private void printSummary(long elapsed) {
+        System.out.printf("%d games in %.1fs: %.1f games/s%n", games.sum(), elapsed / 1e9, games.sum() / (elapsed / 1e9));
+        System.out.printf("%-14s %10s %10s %10s %10s %10s%n", "round trip", "count", "p50 us", "p90 us", "p99 us", "max us");
+        for (Command command : Command.values()) {
+            Histogram histogram = roundTrips[command.ordinal()];
+            if (histogram.getCount() == 0) continue;
+            System.out.printf("%-14s %10d %10d %10d %10d %10d%n", command, histogram.getCount(), histogram.getPercentile(0.5),
+                    histogram.getPercentile(0.9), histogram.getPercentile(0.99), histogram.getMax());
+        }
+        for (Error error : Error.values()) {
+            if (errors[error.ordinal()].sum() > 0) System.out.println(error.name() + " " + error + ": " + errors[error.ordinal()].sum());
+        }
+        if (invalid.sum() > 0) System.out.println("Non-protocol messages: " + invalid.sum());
+        if (connectionFailures.sum() > 0) System.out.println("Failed connections: " + connectionFailures.sum());
+        if (timeouts.sum() > 0) System.out.println("Timed out sessions: " + timeouts.sum());
+    }
+}
@@ -9,12 +9,21 @@ import java.util.Arrays;
 import static networking.server.ServerGame.PORT;
 
 import logic.utils.players.ClientPlayer;
+import networking.protocol.Args;
 import networking.protocol.Command;
 import networking.protocol.Error;
+import networking.protocol.ExecutionMode;
+import networking.protocol.Feature;
 import networking.protocol.Handler;
+import networking.protocol.WireFormat;
 
 public class ServerHandler extends Handler {
 
+    public static final int RECONNECT_ATTEMPTS = 30;
+    public static final int RECONNECT_DELAY = 2000;
+
+    private Socket socket;
+
     @Override
     public void run() {
         try {
@@ -34,25 +43,14 @@ public class ServerHandler extends Handler {
 
             init(address);
 
-            while (ClientGame.getPlayer() == null) {
-                sendCommand(Command.HELLO, ClientGame.getUserInput("Enter your name:"));
-                String text;
-                while (true) {
-                    text = inputReader.readLine();
-                    handleCommand(text);
-                    if (text.startsWith(Command.WELCOME.toString()) || Error.fromString(text) != null) break;
-                }
-            }
-            ClientGame.doneInit();
-
-            String text;
-            while ((text = inputReader.readLine()) != null) {
+            if (ClientGame.isSpectator()) sendWatch();
+            else sendHello();
+            while (true) {
                 try {
-                    handleCommand(text);
-                } catch (IllegalArgumentException e) {
-                    ClientGame.print(e.getMessage());
-                    ClientGame.print("message was: " + text);
-                    sendError(Error.E7);
+                    readFrames();
+                    throw new EOFException();
+                } catch (IOException e) {
+                    if (ClientGame.getToken() == null || !reconnect(address)) throw e;
                 }
             }
         } catch (IOException e) {
@@ -61,19 +59,92 @@ public class ServerHandler extends Handler {
         }
     }
 
+    /**
+     * Opens a new connection after the previous one dropped and resumes the session, the server then sends
+     * the full state of the game and repeats what it was waiting for.
+     *
+     * @param address The InetAddress of the server.
+     * @return true if a new connection is open, false if the server could not be reached in time.
+     */
+    private boolean reconnect(InetAddress address) {
+        ClientGame.print("The connection was lost, trying to resume the game...");
+        close();
+        for (int attempt = 0; attempt < RECONNECT_ATTEMPTS; attempt++) {
+            try {
+                Thread.sleep(RECONNECT_DELAY);
+                connect(address);
+            } catch (IOException e) {
+                continue;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+
+            frameReader.reset();
+            setFormat(WireFormat.TEXT); // until welcomed again
+            if (ClientGame.getFeatures().isEmpty()) sendCommand(Command.RESUME, ClientGame.getToken());
+            else sendCommand(Command.RESUME, ClientGame.getToken(), Feature.join(ClientGame.getFeatures()));
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Closes the current connection, if any.
+     */
+    private void close() {
+        try {
+            if (socket != null) socket.close();
+        } catch (IOException ignored) {}
+    }
+
+    /**
+     * Asks the user for a name and introduces the player to the server, asking for the wanted features.
+     */
+    private void sendHello() {
+        String name = ClientGame.getUserInput("Enter your name:");
+        if (ClientGame.getFeatures().isEmpty()) sendCommand(Command.HELLO, name);
+        else sendCommand(Command.HELLO, name, Feature.join(ClientGame.getFeatures()));
+    }
+
+    /**
+     * Asks the server to follow a game without playing, the room given as argument or any running game.
+     */
+    private void sendWatch() {
+        if (ClientGame.getWatchedRoom() < 0) sendCommand(Command.WATCH);
+        else sendCommand(Command.WATCH, String.valueOf(ClientGame.getWatchedRoom()));
+    }
+
+    @Override
+    protected void handleError(Error error) {
+        super.handleError(error);
+        if (ClientGame.isSpectator()) {
+            System.out.println("There is no game to watch");
+            System.exit(0);
+        }
+        if (error == Error.E10) { // the seat has been given up while the connection was down
+            System.out.println("The game could not be resumed");
+            System.exit(0);
+        }
+        if (ClientGame.getPlayer() == null) sendHello(); // the handshake failed, try another name
+    }
+
+    @Override
+    protected void handleInvalid(IllegalArgumentException e) {
+        ClientGame.print(e.getMessage());
+        super.handleInvalid(e);
+    }
+
     /**
      * Initializes a socket connection to the given address.
      *
      * @param address The InetAddress of the server to connect to.
      */
     protected void init(InetAddress address) {
-        Socket socket = null;
         while (socket == null) {
             try {
                 System.out.println("Attempting to connect to " + address + ":"  + PORT + "...");
-                socket = new Socket(address, PORT);
-                inputReader = new BufferedReader(new InputStreamReader(socket.getInputStream()));
-                outputWriter = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream()));
+                connect(address);
                 System.out.println("Connection established!");
             } catch (IOException e) {
                 System.out.println("Could not create a socket on " + address + ":" + PORT);
@@ -81,16 +152,32 @@ public class ServerHandler extends Handler {
         }
     }
 
+    /**
+     * Opens a socket connection to the given address and uses it for the next reads and writes.
+     *
+     * @param address The InetAddress of the server to connect to.
+     * @throws IOException If the connection could not be opened.
+     */
+    private void connect(InetAddress address) throws IOException {
+        Socket connection = new Socket(address, PORT);
+        input = connection.getInputStream();
+        output = new BufferedOutputStream(connection.getOutputStream());
+        socket = connection;
+    }
+
     /**
      * Handles the "Welcome" command received from the server.
-     * Sets the name of the client game.
+     * Sets the name of the client game, keeps the session token and switches to the binary protocol if the server accepted it.
      *
      * @param handler The handler for the command.
-     * @param args    The authorized player name.
+     * @param args    The authorized player name, optionally followed by the accepted features and the session token.
      */
-    public static void handleWelcome(Handler handler, String... args) {
-        ClientGame.setName(args[0]);
-        System.out.println("Welcome: " + args[0]);
+    public static void handleWelcome(Handler handler, Args args) {
+        ClientGame.setName(args.get(0));
+        System.out.println("Welcome: " + args.get(0));
+        if (args.length() == 3) ClientGame.setToken(args.get(2));
+        if (args.length() >= 2 && Feature.parse(args.get(1)).contains(Feature.BINARY)) handler.setFormat(WireFormat.BINARY);
+        ClientGame.doneInit();
     }
 
     /**
@@ -99,8 +186,9 @@ public class ServerHandler extends Handler {
      * @param handler The handler for the command.
      * @param args    The message sent
      */
-    public static void handleNotify(Handler handler, String... args) {
-        ClientGame.print(args[0]);
+    public static void handleNotify(Handler handler, Args args) {
+        if (ClientGame.getPlayer() != null) ClientGame.getPlayer().observe(args.get(0));
+        ClientGame.print(args.get(0));
     }
 
     /**
@@ -110,32 +198,81 @@ public class ServerHandler extends Handler {
      * @param handler The handler for the command.
      * @param args    Firstly the last player, secondly the current player.
      */
-    public static void handleNext(Handler handler, String... args) {
+    public static void handleNext(Handler handler, Args args) {
         ClientPlayer player = ClientGame.getPlayer();
+        if (player == null) { // watching the game
+            ClientGame.print("It is now " + args.get(1) + "'s turn");
+            return;
+        }
+        player.observeTurn(args.get(0), args.get(1));
         ClientGame.displayGame();
-        if (player.getName().equals(args[1])) {
+        if (player.getName().equals(args.get(1))) {
             player
                 .takeTurn()
                 .thenAcceptAsync(card -> {
                     if (card == null) handler.sendCommand(Command.CARD);
                     else handler.sendCommand(Command.MOVE, card.name());
-                });
+                }, ExecutionMode.current().executor());
         } else {
             player.endTurn();
-            ClientGame.print("It is now " + args[1] + "'s turn");
+            ClientGame.print("It is now " + args.get(1) + "'s turn");
         }
     }
 
+    /**
+     * Handles the public state of the watched game, sent when it changes.
+     *
+     * @param handler The handler for the command.
+     * @param args    Firstly the players with the size of their hand, secondly the top card, thirdly pile size,
+     *                optionally the current player.
+     */
+    public static void handleState(Handler handler, Args args) {
+        ClientGame.setLastCardPlayed(args.card(1));
+        ClientGame.setPileSize(args.number(2));
+        ClientGame.print("Players: " + args.get(0));
+        ClientGame.print("The top card: " + (ClientGame.lastCardPlayed != null ? ClientGame.lastCardPlayed.name() : "None")
+            + " Pile size: " + ClientGame.pileSize
+            + (args.length() == 4 ? " Turn: " + args.get(3) : ""));
+        ClientGame.doneInit();
+    }
+
     /**
      * Handles the "player's" information received from the server.
      *
      * @param handler The handler for the command.
-     * @param args    Firstly the cards, secondly the top card, thirdly pile size.
+     * @param args    Firstly the cards, secondly the top card, thirdly pile size, optionally the sequence number.
      */
-    public static void handlePlayer(Handler handler, String... args) {
-        ClientGame.getPlayer().setCards(args[0]);
-        ClientGame.setLastCardPlayed(args[1]);
-        ClientGame.setPileSize(args[2]);
+    public static void handlePlayer(Handler handler, Args args) {
+        ClientGame.getPlayer().setCards(args.cards(0));
+        ClientGame.setLastCardPlayed(args.card(1));
+        ClientGame.setPileSize(args.number(2));
+        if (args.length() == 4) {
+            ClientGame.sequence = args.number(3);
+            ClientGame.syncing = false;
+        }
+    }
+
+    /**
+     * Handles the changes of the player's information received from the server.
+     * Asks once for a full update instead if an update has been missed, the following changes are ignored until it arrives.
+     *
+     * @param handler The handler for the command.
+     * @param args    Firstly the cards added, secondly the cards removed, thirdly the sequence number,
+     *                optionally fourthly pile size and fifthly the top card when they changed.
+     */
+    public static void handleDelta(Handler handler, Args args) {
+        if (ClientGame.syncing) return;
+        int sequence = args.number(2);
+        if (sequence != ClientGame.sequence + 1) {
+            ClientGame.syncing = true;
+            handler.sendCommand(Command.SYNC);
+            return;
+        }
+
+        ClientGame.sequence = sequence;
+        ClientGame.getPlayer().applyDelta(args.cards(0), args.cards(1));
+        if (args.length() > 3) ClientGame.setPileSize(args.number(3));
+        if (args.length() > 4) ClientGame.setLastCardPlayed(args.card(4));
     }
 
     /**
@@ -144,10 +281,10 @@ public class ServerHandler extends Handler {
      * @param handler The handler for the command.
      * @param args    The list of targets.
      */
-    public static void handleHand(Handler handler, String... args) {
+    public static void handleHand(Handler handler, Args args) {
         ClientGame.getPlayer()
-            .choosePlayer(Arrays.asList(args[0].split(", ")))
-            .thenAcceptAsync( player -> handler.sendCommand(Command.TARGET, player) );
+            .choosePlayer(Arrays.asList(args.get(0).split(", ")))
+            .thenAcceptAsync(player -> handler.sendCommand(Command.TARGET, player), ExecutionMode.current().executor());
     }
 
     /**
@@ -156,11 +293,11 @@ public class ServerHandler extends Handler {
      * @param handler The Handler instance for the command.
      * @param args    The name of the player to give the card to.
      */
-    public static void handleDemand(Handler handler, String... args) {
+    public static void handleDemand(Handler handler, Args args) {
         ClientGame.displayGame();
         ClientGame.getPlayer()
             .chooseCard()
-            .thenAcceptAsync( card -> handler.sendCommand(Command.GIVE, card.name()) );
+            .thenAcceptAsync(card -> handler.sendCommand(Command.GIVE, card.name()), ExecutionMode.current().executor());
     }
 
     /**
@@ -169,7 +306,7 @@ public class ServerHandler extends Handler {
      * @param handler The handler for the move.
      * @param args    None.
      */
-    public static void handleExecuted(Handler handler, String... args) {
+    public static void handleExecuted(Handler handler, Args args) {
         ClientGame.print("Your move has been executed");
         ClientPlayer player = ClientGame.getPlayer();
         if (player.canPlay()) {
@@ -179,7 +316,7 @@ public class ServerHandler extends Handler {
                 .thenAcceptAsync(card -> {
                     if (card == null) handler.sendCommand(Command.CARD);
                     else handler.sendCommand(Command.MOVE, card.name());
-                });
+                }, ExecutionMode.current().executor());
         } else player.confirmMove();
     }
 
@@ -189,7 +326,8 @@ public class ServerHandler extends Handler {
      * @param handler The handler for the command. It is not used in this method.
      * @param args    None.
      */
-    public static void handleGameOver(Handler handler, String... args) {
+    public static void handleGameOver(Handler handler, Args args) {
+        ClientGame.setToken(null); // nothing to come back to
         ClientGame.getPlayer().stop();
     }
 
@@ -199,10 +337,10 @@ public class ServerHandler extends Handler {
      * @param handler The handler for the command.
      * @param args    None.
      */
-    public static void handleExplode(Handler handler, String... args) {
+    public static void handleExplode(Handler handler, Args args) {
         ClientGame.displayGame();
         ClientGame.getPlayer()
             .choosePosition()
-            .thenAcceptAsync(position -> handler.sendCommand(Command.PLACE, position + ""));
+            .thenAcceptAsync(position -> handler.sendCommand(Command.PLACE, position + ""), ExecutionMode.current().executor());
     }
 }
\ No newline at end of file
@@ -0,0 +1,144 @@
+package networking.protocol;
+
+import logic.utils.Card;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+public enum ArgType {
+    TEXT,   // u16 length followed by the UTF-8 bytes
+    NAMES,  // u8 count followed by texts, joined by ", " in the text protocol
+    CARD,   // card ordinal, NO_CARD when empty
+    CARDS,  // u8 count followed by card ordinals, joined by "," in the text protocol
+    NUMBER; // signed 32 bits integer
+
+    public static final int NO_CARD = 0xFF;
+    public static final String NAMES_SEPARATOR = ", ";
+    public static final String CARDS_SEPARATOR = ",";
+
+    private static final Card[] CARDS_BY_ORDINAL = Card.values();
+
+    /**
+     * Writes the binary form of an argument.
+     *
+     * @param out The stream the argument is written to.
+     * @param value The argument as it would be sent in the text protocol.
+     * @throws IllegalArgumentException If the value does not match the type.
+     */
+    public void write(ByteArrayOutputStream out, String value) throws IllegalArgumentException {
+        switch (this) {
+            case TEXT:
+                writeText(out, value);
+                break;
+            case NAMES:
+                List<String> names = split(value, NAMES_SEPARATOR);
+                out.write(names.size());
+                names.forEach(name -> writeText(out, name));
+                break;
+            case CARD:
+                out.write(value.isEmpty() ? NO_CARD : Card.valueOf(value).ordinal());
+                break;
+            case CARDS:
+                List<String> cards = split(value, CARDS_SEPARATOR);
+                out.write(cards.size());
+                cards.forEach(card -> out.write(Card.valueOf(card).ordinal()));
+                break;
+            case NUMBER:
+                int number;
+                try {
+                    number = Integer.parseInt(value);
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("not a number: " + value);
+                }
+                out.write(number >>> 24);
+                out.write(number >>> 16);
+                out.write(number >>> 8);
+                out.write(number);
+                break;
+        }
+    }
+
+    /**
+     * Reads the binary form of an argument, cards and numbers are kept as decoded from their codes.
+     *
+     * @param in The buffer positioned on the argument.
+     * @param args The arguments being decoded.
+     * @param index The position of the argument.
+     * @throws IllegalArgumentException If the buffer does not hold a valid argument.
+     */
+    public void read(ByteBuffer in, Args args, int index) throws IllegalArgumentException {
+        try {
+            switch (this) {
+                case NAMES:
+                    int nameCount = in.get() & 0xFF;
+                    StringBuilder names = new StringBuilder();
+                    for (int i = 0; i < nameCount; i++) {
+                        if (i > 0) names.append(NAMES_SEPARATOR);
+                        names.append(readText(in));
+                    }
+                    args.setText(index, names.toString());
+                    break;
+                case CARD:
+                    int ordinal = in.get() & 0xFF;
+                    args.setCard(index, ordinal == NO_CARD ? null : card(ordinal));
+                    break;
+                case CARDS:
+                    Card[] cards = new Card[in.get() & 0xFF];
+                    for (int i = 0; i < cards.length; i++) cards[i] = card(in.get() & 0xFF);
+                    args.setCards(index, cards);
+                    break;
+                case NUMBER:
+                    args.setNumber(index, in.getInt());
+                    break;
+                default:
+                    args.setText(index, unescape(readText(in)));
+            }
+        } catch (RuntimeException e) { // buffer underflow or unknown card
+            throw new IllegalArgumentException("malformed " + name() + " argument");
+        }
+    }
+
+    /**
+     * Restores the new lines escaped by senders that write the text protocol.
+     */
+    private static String unescape(String text) {
+        return text.indexOf('\\') >= 0 ? text.replace("\\n", "\n") : text;
+    }
+
+    private static void writeText(ByteArrayOutputStream out, String value) {
+        byte[] bytes = value.getBytes(UTF_8);
+        if (bytes.length > 0xFFFF) throw new IllegalArgumentException("text argument too long");
+        out.write(bytes.length >>> 8);
+        out.write(bytes.length);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    private static String readText(ByteBuffer in) {
+        int length = in.getShort() & 0xFFFF;
+        if (length > in.remaining()) throw new BufferUnderflowException();
+        String text = new String(in.array(), in.arrayOffset() + in.position(), length, UTF_8);
+        in.position(in.position() + length);
+        return text;
+    }
+
+    private static Card card(int ordinal) {
+        return CARDS_BY_ORDINAL[ordinal];
+    }
+
+    /**
+     * Splits a joined list, ignoring empty entries such as the trailing separator of a hand.
+     */
+    private static List<String> split(String value, String separator) {
+        List<String> values = new ArrayList<>();
+        for (String part : value.split(separator)) {
+            if (!part.isEmpty()) values.add(part);
+        }
+        if (values.size() > 0xFF) throw new IllegalArgumentException("too many values in list argument");
+        return values;
+    }
+}
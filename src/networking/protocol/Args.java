@@ -0,0 +1,174 @@
+package networking.protocol;
+
+import logic.utils.Card;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Arguments of a received command. A binary frame hands over its cards and numbers as they are decoded from their
+ * byte codes. A text line is read through a view of the {@link Tokenizer} buffer, reused for every line of the
+ * connection: cards and numbers are looked up in place and a String is only built when a handler asks for a text.
+ * The view is only valid while the command is dispatched, handlers read what they keep before handing it to another thread.
+ */
+public final class Args {
+
+    private static final NameTable<Card> CARDS = new NameTable<>(Card.values(), Card::name);
+
+    private final Tokenizer tokenizer; // line read through, null for a binary frame
+    private final Command command;
+    private final String[] texts; // text form of each argument, filled on demand for the decoded cards and numbers
+    private final Card[] cards;   // decoded CARD arguments, null for a text line
+    private final int[] numbers;  // decoded NUMBER arguments, null for a text line
+    private final Card[][] lists; // decoded CARDS arguments, null for a text line
+
+    private Args(Tokenizer tokenizer, Command command, String[] texts, Card[] cards, int[] numbers, Card[][] lists) {
+        this.tokenizer = tokenizer;
+        this.command = command;
+        this.texts = texts;
+        this.cards = cards;
+        this.numbers = numbers;
+        this.lists = lists;
+    }
+
+    /**
+     * Creates the view of the lines loaded in a tokenizer.
+     *
+     * @param tokenizer The tokenizer of the connection.
+     * @return The arguments of the line loaded.
+     */
+    static Args of(Tokenizer tokenizer) {
+        return new Args(tokenizer, null, null, null, null, null);
+    }
+
+    /**
+     * Creates the arguments of a binary frame, filled by {@link WireFormat} as it decodes them.
+     *
+     * @param command The command of the frame.
+     * @param count The number of arguments.
+     * @return The arguments, all empty.
+     */
+    static Args ofBinary(Command command, int count) {
+        return new Args(null, command, new String[count], new Card[count], new int[count], new Card[count][]);
+    }
+
+    void setText(int index, String text) {
+        texts[index] = text;
+    }
+
+    void setCard(int index, Card card) {
+        cards[index] = card;
+    }
+
+    void setNumber(int index, int number) {
+        numbers[index] = number;
+    }
+
+    void setCards(int index, Card[] list) {
+        lists[index] = list;
+    }
+
+    private boolean isDecoded(int index, ArgType type) {
+        return command.getArgType(index) == type;
+    }
+
+    /**
+     * Retrieves the number of arguments.
+     *
+     * @return The argument count.
+     */
+    public int length() {
+        if (tokenizer != null) return tokenizer.argCount();
+        return texts.length;
+    }
+
+    /**
+     * Retrieves an argument as it is written in the text protocol.
+     *
+     * @param index The position of the argument.
+     * @return The argument.
+     */
+    public String get(int index) {
+        if (tokenizer != null) return tokenizer.arg(index);
+        if (texts[index] != null) return texts[index];
+
+        String text;
+        switch (command.getArgType(index)) {
+            case CARD:
+                text = cards[index] == null ? "" : cards[index].name();
+                break;
+            case NUMBER:
+                text = Integer.toString(numbers[index]);
+                break;
+            default: // CARDS
+                StringBuilder joined = new StringBuilder();
+                for (Card card : lists[index]) joined.append(card.name()).append(ArgType.CARDS_SEPARATOR);
+                text = joined.toString();
+        }
+        texts[index] = text;
+        return text;
+    }
+
+    /**
+     * Retrieves an argument naming a card.
+     *
+     * @param index The position of the argument.
+     * @return The card, or null if the argument is empty.
+     * @throws IllegalArgumentException If the argument is not the name of a card.
+     */
+    public Card card(int index) throws IllegalArgumentException {
+        if (tokenizer != null) return tokenizer.card(index);
+        if (isDecoded(index, ArgType.CARD)) return cards[index];
+        return card(get(index));
+    }
+
+    /**
+     * Retrieves a numeric argument.
+     *
+     * @param index The position of the argument.
+     * @return The number.
+     * @throws NumberFormatException If the argument is not a number.
+     */
+    public int number(int index) throws NumberFormatException {
+        if (tokenizer != null) return tokenizer.number(index);
+        if (isDecoded(index, ArgType.NUMBER)) return numbers[index];
+        return Integer.parseInt(get(index));
+    }
+
+    /**
+     * Retrieves an argument listing cards.
+     *
+     * @param index The position of the argument.
+     * @return The cards, in the order listed.
+     * @throws IllegalArgumentException If a name is not the name of a card.
+     */
+    public List<Card> cards(int index) throws IllegalArgumentException {
+        if (tokenizer != null) return tokenizer.cards(index);
+        if (isDecoded(index, ArgType.CARDS)) return Arrays.asList(lists[index]);
+
+        List<Card> list = new ArrayList<>();
+        for (String name : get(index).split(ArgType.CARDS_SEPARATOR)) {
+            if (!name.isEmpty()) list.add(card(name));
+        }
+        return list;
+    }
+
+    /**
+     * Retrieves every argument as it is written in the text protocol, to send them on.
+     *
+     * @return The arguments.
+     */
+    public String[] toArray() {
+        String[] all = new String[length()];
+        for (int i = 0; i < all.length; i++) all[i] = get(i);
+        return all;
+    }
+
+    private static Card card(String name) throws IllegalArgumentException {
+        if (name.isEmpty()) return null;
+        Card card = CARDS.get(name);
+        if (card == null) throw new IllegalArgumentException("unknown card: " + name);
+        return card;
+    }
+}
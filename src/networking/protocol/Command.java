@@ -7,39 +7,63 @@ import java.util.function.BiConsumer;
 
 public enum Command {
     /* ----------------------------------------------- CLIENT => SERVER -----------------------------------------------*/
-    HELLO("Hello", 1, ClientHandler::handleHello),
+    // the optional second argument lists the features asked for
+    HELLO("Hello", 1, ClientHandler::handleHello, ArgType.TEXT, ArgType.TEXT),
     EXIT("Exit", 0, ClientHandler::handleExit),
-    MOVE("Move", 1, ClientHandler::handleMove),
+    MOVE("Move", 1, ClientHandler::handleMove, ArgType.CARD),
     TARGET("Choose target", 1, ClientHandler::handleTarget),
     CARD("Draw card", 0, ClientHandler::handleDraw),
     // NEW send message to server telling which card it wants to give specifying the card sent
-    GIVE("Give card", 1, ClientHandler::handleGive),
+    GIVE("Give card", 1, ClientHandler::handleGive, ArgType.CARD),
     // NEW send message to server telling where to put the exploding kitten at
-    PLACE("Place kitten", 1, ClientHandler::handlePlace),
+    PLACE("Place kitten", 1, ClientHandler::handlePlace, ArgType.NUMBER),
+    // ask for a full "Players" update after missing a "Delta"
+    SYNC("Sync", 0, ClientHandler::handleSync),
+    // take the seat back after a dropped connection with the session token, optionally followed by the features asked for
+    RESUME("Resume", 1, ClientHandler::handleResume, ArgType.TEXT, ArgType.TEXT),
+    // follow a running game without playing, optionally the one of the given room
+    WATCH("Watch", 0, ClientHandler::handleWatch, ArgType.NUMBER),
     /* ----------------------------------------------- SERVER => CLIENT -----------------------------------------------*/
-    WELCOME("Welcome", 1, ServerHandler::handleWelcome),
-    HAND("Current hand", 1, ServerHandler::handleHand),
+    // the optional second argument lists the features accepted, the optional third one is the session token
+    WELCOME("Welcome", 1, ServerHandler::handleWelcome, ArgType.TEXT, ArgType.TEXT, ArgType.TEXT),
+    HAND("Current hand", 1, ServerHandler::handleHand, ArgType.NAMES),
     // NEW send message to targeted player for a favor to choose a card specifying the player to give it to
     DEMAND("Choose card", 1, ServerHandler::handleDemand),
     EXECUTEDMOVE("Executed move", 0, ServerHandler::handleExecuted),
     EXPLODINGKITTEN("Exploding Kitten", 0, ServerHandler::handleExplode),
     GAMEOVER("Game over", 0, ServerHandler::handleGameOver),
     NEXT("Next turn", 2, ServerHandler::handleNext),
-    PLAYERS("Players", 3, ServerHandler::handlePlayer),
+    // the optional fourth argument is the update sequence number of delta clients
+    PLAYERS("Players", 3, ServerHandler::handlePlayer, ArgType.CARDS, ArgType.CARD, ArgType.NUMBER, ArgType.NUMBER),
+    // cards added, cards removed, sequence number (last of the mandatory ones as the lists may be empty),
+    // then the pile size and the top card if they changed
+    DELTA("Delta", 3, ServerHandler::handleDelta, ArgType.CARDS, ArgType.CARDS, ArgType.NUMBER, ArgType.NUMBER, ArgType.CARD),
     NOTIFY("Notify", 1, ServerHandler::handleNotify),
+    // sent to spectators: the players left with their number of cards, top card, pile size, current player if any
+    STATE("State", 3, ServerHandler::handleState, ArgType.NAMES, ArgType.CARD, ArgType.NUMBER, ArgType.TEXT),
     /* ------------------------------------------------- BIDIRECTIONAL ------------------------------------------------*/
     CHAT("Chat", 2, Handler::handleChat);
 
     public static final String SEPARATOR = "|";
 
+    private static final NameTable<Command> NAMES = new NameTable<>(values(), Command::toString);
+
     private final String value;
     private final int args;
-    private final BiConsumer<Handler, String[]> executor;
+    private final BiConsumer<Handler, Args> executor;
+    private final ArgType[] argTypes;
 
-    Command(String value, int args, BiConsumer<Handler, String[]> executor) {
+    /**
+     * @param value The name of the command in the text protocol.
+     * @param args The number of mandatory arguments.
+     * @param executor The handler method of the command.
+     * @param argTypes The binary encoding of each argument, optional ones included, TEXT if not given.
+     */
+    Command(String value, int args, BiConsumer<Handler, Args> executor, ArgType... argTypes) {
         this.value = value;
         this.args = args;
         this.executor = executor;
+        this.argTypes = argTypes;
     }
 
     /**
@@ -50,10 +74,21 @@ public enum Command {
      * @throws IllegalArgumentException If the given String value does not match any Command enum value.
      */
     public static Command fromString(String value) throws IllegalArgumentException {
-        for (Command command : Command.values()) {
-            if (value.equals(command.value)) return command;
-        }
-        throw new IllegalArgumentException("unknown command: " + value);
+        Command command = NAMES.get(value);
+        if (command == null) throw new IllegalArgumentException("unknown command: " + value);
+        return command;
+    }
+
+    /**
+     * Converts a slice of a char buffer to a Command enum value without creating a String.
+     *
+     * @param chars The buffer holding the value.
+     * @param from The index of the first char of the value.
+     * @param to The index after the last char of the value.
+     * @return The Command enum value corresponding to the slice, or null if it doesn't match any Command enum value.
+     */
+    public static Command fromChars(char[] chars, int from, int to) {
+        return NAMES.get(chars, from, to);
     }
 
     /**
@@ -65,13 +100,32 @@ public enum Command {
         return args;
     }
 
+    /**
+     * Retrieves the maximum number of arguments accepted by the command, optional ones included.
+     *
+     * @return The maximum number of arguments.
+     */
+    public int getMaxArgs() {
+        return Math.max(args, argTypes.length);
+    }
+
+    /**
+     * Retrieves how an argument of the command is encoded in the binary protocol.
+     *
+     * @param index The index of the argument.
+     * @return The type of the argument.
+     */
+    public ArgType getArgType(int index) {
+        return index < argTypes.length ? argTypes[index] : ArgType.TEXT;
+    }
+
     /**
      * Executes the given command with the provided arguments using the specified handler.
      *
      * @param handler The handler to be used for executing the command.
      * @param args The arguments to be passed to the command.
      */
-    public void executeWith(Handler handler, String... args) {
+    public void executeWith(Handler handler, Args args) {
         executor.accept(handler, args);
     }
 
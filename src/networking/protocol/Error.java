@@ -9,7 +9,10 @@ public enum Error {
     E6("Not your turn"),
     E7("Non-protocol messages"),
     E8("Missing information"),
-    E9("Unknown error");
+    E9("Unknown error"),
+    E10("Unknown session");
+
+    private static final NameTable<Error> NAMES = new NameTable<>(values(), Error::toString);
 
     private final String value;
 
@@ -24,10 +27,19 @@ public enum Error {
      * @return The Error enum value corresponding to the given String value, or null if it doesn't match any Error enum value.
      */
     public static Error fromString(String value) {
-        for (Error error : Error.values()) {
-            if (value.equals(error.value)) return error;
-        }
-        return null;
+        return NAMES.get(value);
+    }
+
+    /**
+     * Converts a slice of a char buffer to an Error enum value without creating a String.
+     *
+     * @param chars The buffer holding the value.
+     * @param from The index of the first char of the value.
+     * @param to The index after the last char of the value.
+     * @return The Error enum value corresponding to the slice, or null if it doesn't match any Error enum value.
+     */
+    public static Error fromChars(char[] chars, int from, int to) {
+        return NAMES.get(chars, from, to);
     }
 
     @Override
@@ -0,0 +1,79 @@
+package networking.protocol;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadFactory;
+
+public enum ExecutionMode {
+    PLATFORM,
+    VIRTUAL;
+
+    public static final String VIRTUAL_FLAG = "-virtual";
+
+    private static volatile ExecutionMode current = PLATFORM;
+    private static ThreadFactory virtualFactory;
+
+    /**
+     * Selects the execution mode from the program arguments, virtual threads are used when "-virtual" is given
+     * and the running JVM supports them.
+     *
+     * @param args The program arguments.
+     * @return The selected execution mode.
+     */
+    public static ExecutionMode select(String... args) {
+        if (!Arrays.asList(args).contains(VIRTUAL_FLAG)) return current;
+
+        virtualFactory = lookupVirtualFactory();
+        if (virtualFactory == null) System.out.println("Virtual threads need Java 21, using platform threads instead");
+        else current = VIRTUAL;
+        return current;
+    }
+
+    /**
+     * Retrieves the execution mode chosen at startup.
+     *
+     * @return The current execution mode.
+     */
+    public static ExecutionMode current() {
+        return current;
+    }
+
+    /**
+     * Creates an unstarted thread running the given task.
+     *
+     * @param task The task to be run.
+     * @return The new thread.
+     */
+    public Thread newThread(Runnable task) {
+        if (this == VIRTUAL) return virtualFactory.newThread(task);
+        return new Thread(task);
+    }
+
+    /**
+     * Retrieves the executor running asynchronous callbacks and input requests,
+     * a new virtual thread per task or the common pool.
+     *
+     * @return The executor of the mode.
+     */
+    public Executor executor() {
+        if (this == VIRTUAL) return task -> virtualFactory.newThread(task).start();
+        return ForkJoinPool.commonPool();
+    }
+
+    /**
+     * Gets the virtual thread factory through reflection so the project still runs on Java 11.
+     *
+     * @return The virtual thread factory, or null if the JVM has no virtual threads.
+     */
+    private static ThreadFactory lookupVirtualFactory() {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Method factory = Class.forName("java.lang.Thread$Builder").getMethod("factory");
+            return (ThreadFactory) factory.invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+}
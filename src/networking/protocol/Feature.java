@@ -0,0 +1,49 @@
+package networking.protocol;
+
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+public enum Feature {
+    BINARY("binary"), // switch to the binary wire format after the handshake
+    DELTA("delta");   // receive hand changes instead of full hands
+
+    public static final String SEPARATOR = ",";
+
+    private final String value;
+
+    Feature(String value) {
+        this.value = value;
+    }
+
+    /**
+     * Reads the features listed in a handshake argument, unknown features are ignored.
+     *
+     * @param value The features separated by commas.
+     * @return The known features of the list.
+     */
+    public static Set<Feature> parse(String value) {
+        Set<Feature> features = EnumSet.noneOf(Feature.class);
+        for (String name : value.split(SEPARATOR)) {
+            for (Feature feature : values()) {
+                if (feature.value.equals(name)) features.add(feature);
+            }
+        }
+        return features;
+    }
+
+    /**
+     * Writes features as a handshake argument.
+     *
+     * @param features The features to be listed.
+     * @return The features separated by commas.
+     */
+    public static String join(Set<Feature> features) {
+        return features.stream().map(Feature::toString).collect(Collectors.joining(SEPARATOR));
+    }
+
+    @Override
+    public String toString() {
+        return value;
+    }
+}
@@ -0,0 +1,95 @@
+package networking.protocol;
+
+import java.util.Arrays;
+
+public class FrameReader {
+
+    public static final int MAX_PENDING_LENGTH = WireFormat.MAX_FRAME_LENGTH + 2;
+    // bigger buffers are only kept while a frame is pending
+    private static final int KEPT_BUFFER_LENGTH = 1024;
+
+    private final Handler handler;
+
+    // bytes of a frame split over several reads, only allocated when it happens
+    private byte[] pending;
+    private int pendingLength;
+
+    public FrameReader(Handler handler) {
+        this.handler = handler;
+    }
+
+    /**
+     * Handles every complete frame of the bytes read, keeping the unfinished one for the next read.
+     * The format of the handler is checked before each frame so it can change during the handshake.
+     *
+     * @param bytes The buffer holding the bytes read.
+     * @param from The index of the first byte read.
+     * @param to The index after the last byte read.
+     * @return false if the unfinished frame is longer than any valid frame, true otherwise.
+     */
+    public boolean read(byte[] bytes, int from, int to) {
+        if (pendingLength == 0) {
+            int consumed = consume(bytes, from, to);
+            if (consumed < to && !handler.isClosed()) append(bytes, consumed, to);
+        } else {
+            append(bytes, from, to);
+            int consumed = consume(pending, 0, pendingLength);
+            System.arraycopy(pending, consumed, pending, 0, pendingLength - consumed);
+            pendingLength -= consumed;
+            if (pendingLength == 0 && pending.length > KEPT_BUFFER_LENGTH) pending = null;
+        }
+        return pendingLength <= MAX_PENDING_LENGTH;
+    }
+
+    /**
+     * Drops the unfinished frame, used when the connection is replaced by a new one.
+     */
+    public void reset() {
+        pending = null;
+        pendingLength = 0;
+    }
+
+    /**
+     * Handles the complete frames of a buffer.
+     *
+     * @return The index of the first byte of the unfinished frame.
+     */
+    private int consume(byte[] bytes, int from, int to) {
+        int position = from;
+        while (position < to && !handler.isClosed()) {
+            int next = handler.getFormat() == WireFormat.TEXT
+                    ? consumeLine(bytes, position, to)
+                    : consumeFrame(bytes, position, to);
+            if (next < 0) break;
+            position = next;
+        }
+        return position;
+    }
+
+    private int consumeLine(byte[] bytes, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (bytes[i] != '\n') continue;
+            int end = i > from && bytes[i - 1] == '\r' ? i - 1 : i;
+            handler.receiveLine(bytes, from, end);
+            return i + 1;
+        }
+        return -1;
+    }
+
+    private int consumeFrame(byte[] bytes, int from, int to) {
+        if (to - from < 2) return -1;
+        int length = (bytes[from] & 0xFF) << 8 | (bytes[from + 1] & 0xFF);
+        if (to - from - 2 < length) return -1;
+        handler.receiveFrame(bytes, from + 2, length);
+        return from + 2 + length;
+    }
+
+    private void append(byte[] bytes, int from, int to) {
+        int length = to - from;
+        if (pending == null) pending = new byte[Math.max(256, length)];
+        if (pendingLength + length > pending.length)
+            pending = Arrays.copyOf(pending, Math.max(pending.length * 2, pendingLength + length));
+        System.arraycopy(bytes, from, pending, pendingLength, length);
+        pendingLength += length;
+    }
+}
@@ -1,19 +1,67 @@
 package networking.protocol;
 
+import metrics.Metrics;
 import networking.client.ClientGame;
 import networking.client.ServerHandler;
 import networking.server.ServerGame;
 import networking.server.ClientHandler;
 
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
-
-import static networking.protocol.Command.SEPARATOR;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public abstract class Handler implements Runnable {
 
-    protected BufferedReader inputReader;
-    protected BufferedWriter outputWriter;
+    public static final int READ_BUFFER_SIZE = 8 * 1024;
+    // longest time a message written outside a batch waits for others before being flushed, in milliseconds
+    public static final int DEFAULT_FLUSH_DELAY = 1;
+    private static volatile int maxFlushDelay = DEFAULT_FLUSH_DELAY;
+    private static final ScheduledExecutorService FLUSH_SCHEDULER = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "flush-scheduler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    protected InputStream input;
+    protected OutputStream output;
+    protected final FrameReader frameReader = new FrameReader(this);
+    private final Tokenizer tokenizer = new Tokenizer();
+    private volatile WireFormat format = WireFormat.TEXT;
+    private final AtomicBoolean flushDelayed = new AtomicBoolean(false);
+    // time the command being handled was received at, only used by the thread reading the connection
+    private long received;
+    private boolean deferred;
+
+    /**
+     * Changes the longest time a message written outside a {@link WriteBatch} waits for others before being flushed.
+     *
+     * @param millis The delay in milliseconds, 0 or less to flush each of these messages at once.
+     */
+    public static void setMaxFlushDelay(int millis) {
+        maxFlushDelay = millis;
+    }
+
+    /**
+     * Retrieves the format used on the connection, both ways.
+     *
+     * @return The wire format.
+     */
+    public WireFormat getFormat() {
+        return format;
+    }
+
+    /**
+     * Changes the format used on the connection, both ways. Only done once the handshake agreed on it.
+     *
+     * @param format The new wire format.
+     */
+    public void setFormat(WireFormat format) {
+        this.format = format;
+    }
 
     /**
      * Sends a command to the server.
@@ -22,7 +70,16 @@ public abstract class Handler implements Runnable {
      * @param args Additional arguments for the command, if any.
      */
     public void sendCommand(Command command, String... args) {
-        send(command + SEPARATOR + String.join(SEPARATOR, args));
+        write(command, format.encode(command, args));
+    }
+
+    /**
+     * Sends a message shared with other connections, its bytes are only encoded once for all of them.
+     *
+     * @param message The message to be sent.
+     */
+    public void send(Message message) {
+        write(message.getCommand(), message.encode(format));
     }
 
     /**
@@ -31,23 +88,162 @@ public abstract class Handler implements Runnable {
      * @param error The error to be sent.
      */
     public void sendError(Error error) {
-        send(error.toString());
+        write(null, format.encode(error));
     }
 
     /**
-     * Sends a message to the server.
+     * Sends an encoded message, the connection is flushed at the end of the current {@link WriteBatch}
+     * or after at most the flush delay.
      *
-     * @param message The message to be sent.
+     * @param command The command of the message, null for an error.
+     * @param frame The bytes of the message, possibly shared with other connections so never modified.
+     */
+    protected void write(Command command, byte[] frame) {
+        try {
+            if (!buffer(command, frame)) return;
+        } catch (IOException e) {
+            handleWriteError(e);
+            return;
+        }
+        Metrics.messageSent(frame.length);
+        if (!WriteBatch.defer(this)) requestFlush();
+    }
+
+    /**
+     * Adds a message to the pending output of the connection.
+     *
+     * @param frame The bytes of the message.
+     * @throws IOException If the connection failed.
+     */
+    protected void buffer(byte[] frame) throws IOException {
+        output.write(frame);
+    }
+
+    /**
+     * Adds a message to the pending output of the connection, unless the connection leaves it out.
+     *
+     * @param command The command of the message, null for an error.
+     * @param frame The bytes of the message.
+     * @return true if the message will be written as a new one, false if it has been dropped or merged with another.
+     * @throws IOException If the connection failed or cannot keep up.
      */
-    protected void send(String message) {
-        // Uncomment for debugging sent messages
-        // if (this instanceof ClientHandler) System.out.print(((ClientHandler) this).getPlayer().getName() + "-> ");
-        // System.out.println(message);
+    protected boolean buffer(Command command, byte[] frame) throws IOException {
+        buffer(frame);
+        return true;
+    }
+
+    /**
+     * Flushes the connection once the flush delay is over, flushes asked for in the meantime are merged.
+     */
+    private void requestFlush() {
+        int delay = maxFlushDelay;
+        if (delay <= 0) {
+            flush();
+            return;
+        }
+        if (flushDelayed.compareAndSet(false, true))
+            FLUSH_SCHEDULER.schedule(() -> {
+                flushDelayed.set(false);
+                flush();
+            }, delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Writes the pending output of the connection.
+     */
+    protected void flush() {
         try {
-            outputWriter.write(message);
-            outputWriter.newLine();
-            outputWriter.flush();
-        } catch (Exception ignored) {}
+            output.flush();
+        } catch (IOException e) {
+            handleWriteError(e);
+        }
+    }
+
+    /**
+     * Handles a failure to write on the connection.
+     *
+     * @param e The exception raised by the write.
+     */
+    protected void handleWriteError(IOException e) {
+        System.out.println("Could not write on the connection: " + e.getMessage());
+    }
+
+    /**
+     * Reads the connection until its end, handling the frames as they are complete.
+     *
+     * @throws IOException If the connection fails or a frame is too long.
+     */
+    protected void readFrames() throws IOException {
+        byte[] buffer = new byte[READ_BUFFER_SIZE];
+        int read;
+        while (!isClosed() && (read = input.read(buffer)) != -1) {
+            boolean valid;
+            WriteBatch.begin(); // answers to the frames of one read are flushed together
+            try {
+                valid = frameReader.read(buffer, 0, read);
+            } finally {
+                WriteBatch.end();
+            }
+            if (!valid) throw new IOException("frame too long");
+        }
+    }
+
+    /**
+     * Checks if the connection has been shut down.
+     *
+     * @return true if no more frames should be handled, false otherwise.
+     */
+    protected boolean isClosed() {
+        return false;
+    }
+
+    /**
+     * Handles a text line, answering it with an error if it is not part of the protocol.
+     *
+     * @param line The buffer holding the UTF-8 line.
+     * @param from The index of the first byte of the line.
+     * @param to The index after the last byte of the line, its terminator excluded.
+     */
+    protected void receiveLine(byte[] line, int from, int to) {
+        try {
+            tokenizer.load(line, from, to);
+            handleTokens();
+        } catch (IllegalArgumentException e) {
+            handleInvalid(e);
+        }
+    }
+
+    /**
+     * Handles a binary frame, answering it with an error if it is not part of the protocol.
+     *
+     * @param frame The buffer holding the frame.
+     * @param offset The start of the frame, after its length.
+     * @param length The length of the frame.
+     */
+    protected void receiveFrame(byte[] frame, int offset, int length) {
+        try {
+            handleCommand(frame, offset, length);
+        } catch (IllegalArgumentException e) {
+            handleInvalid(e);
+        }
+    }
+
+    /**
+     * Handles a message that is not part of the protocol.
+     *
+     * @param e The exception describing the problem.
+     */
+    protected void handleInvalid(IllegalArgumentException e) {
+        sendError(Error.E7);
+    }
+
+    /**
+     * Handles an error received from the other side.
+     *
+     * @param error The error received.
+     */
+    protected void handleError(Error error) {
+        System.out.println(error.name() + ": " + error);
     }
 
     /**
@@ -57,22 +253,83 @@ public abstract class Handler implements Runnable {
      * @throws IllegalArgumentException If the command does not match any supported command or if the number of arguments is incorrect.
      */
     protected void handleCommand(String message) throws IllegalArgumentException {
-        String[] parts = message.split("\\" + SEPARATOR, 2);
-        Error error = Error.fromString(parts[0]);
+        tokenizer.load(message);
+        handleTokens();
+    }
+
+    /**
+     * Handles the line loaded in the tokenizer.
+     *
+     * @throws IllegalArgumentException If the command does not match any supported command or if the number of arguments is incorrect.
+     */
+    private void handleTokens() throws IllegalArgumentException {
+        Error error = tokenizer.error();
         if (error != null) {
-            System.out.println(error.name() + ": " + error);
+            handleError(error);
             return;
         }
 
-        Command command = Command.fromString(parts[0]);
+        Command command = tokenizer.command();
+        checkArgs(command, tokenizer.argCount());
+        dispatch(command, tokenizer.args());
+    }
 
-        String[] args = parts.length == 2 ? parts[1].replaceAll("\\\\n", "\n").split("\\" + SEPARATOR) : new String[0];
+    /**
+     * Handles a command received as a binary frame.
+     *
+     * @param frame The buffer holding the frame.
+     * @param offset The start of the frame, after its length.
+     * @param length The length of the frame.
+     * @throws IllegalArgumentException If the frame does not match any supported command or if its arguments are malformed.
+     */
+    protected void handleCommand(byte[] frame, int offset, int length) throws IllegalArgumentException {
+        if (length < 1) throw new IllegalArgumentException("empty frame");
+        Error error = WireFormat.decodeError(frame, offset);
+        if (error != null) {
+            handleError(error);
+            return;
+        }
 
-        if (args.length == 1 && args[0].isEmpty()) args = new String[0];
-        if (command.getArgs() != args.length)
-            throw new IllegalArgumentException(command + " expects " + command.getArgs() + " arguments and got: " + args.length);
+        Command command = WireFormat.decodeCommand(frame, offset);
+        Args args = WireFormat.decodeArgs(command, frame, offset, length);
+        checkArgs(command, args.length());
+        dispatch(command, args);
+    }
 
+    /**
+     * Executes a received command and records the time it took, unless the command finishes on another thread.
+     * Overridden by the handlers answering the commands themselves instead of through the command handlers.
+     *
+     * @param command The command received.
+     * @param args The arguments of the command.
+     */
+    protected void dispatch(Command command, Args args) {
+        received = System.nanoTime();
+        deferred = false;
         command.executeWith(this, args);
+        if (!deferred) Metrics.commandHandled(command, received);
+    }
+
+    /**
+     * Leaves the measure of the command being handled to the caller, for a command finishing on another thread.
+     *
+     * @return The time the command was received at, from System.nanoTime.
+     */
+    protected long defer() {
+        deferred = true;
+        return received;
+    }
+
+    /**
+     * Checks the number of arguments of a command.
+     *
+     * @param command The command received.
+     * @param count The number of arguments received.
+     * @throws IllegalArgumentException If the number of arguments is incorrect.
+     */
+    private static void checkArgs(Command command, int count) throws IllegalArgumentException {
+        if (count < command.getArgs() || count > command.getMaxArgs())
+            throw new IllegalArgumentException(command + " expects " + command.getArgs() + " arguments and got: " + count);
     }
 
     /**
@@ -82,8 +339,8 @@ public abstract class Handler implements Runnable {
      *
      * @param args Firstly the player name, Secondly the message;
      */
-    public void handleChat(String... args) {
-        if (this instanceof ServerHandler) ClientGame.print(args[0] + "> " + args[1]);
-        else if (this instanceof ClientHandler) ServerGame.broadcast((ClientHandler) this, Command.CHAT, args);
+    public void handleChat(Args args) {
+        if (this instanceof ServerHandler) ClientGame.print(args.get(0) + "> " + args.get(1));
+        else if (this instanceof ClientHandler) ServerGame.broadcast((ClientHandler) this, Command.CHAT, args.toArray());
     }
-}
\ No newline at end of file
+}
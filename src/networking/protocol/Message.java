@@ -0,0 +1,61 @@
+package networking.protocol;
+
+/**
+ * Command sent to many connections, encoded at most once per wire format however many recipients it has.
+ * The encoded bytes are shared by every recipient and never modified, each connection only wraps them.
+ */
+public final class Message {
+
+    private final Command command;
+    private final String[] args;
+    private volatile byte[] text;
+    private volatile byte[] binary;
+
+    private Message(Command command, String[] args) {
+        this.command = command;
+        this.args = args;
+    }
+
+    /**
+     * Creates a message, nothing is encoded until a recipient needs it.
+     *
+     * @param command The command to be sent.
+     * @param args Additional arguments for the command, if any.
+     * @return The message.
+     */
+    public static Message of(Command command, String... args) {
+        return new Message(command, args);
+    }
+
+    public Command getCommand() {
+        return command;
+    }
+
+    /**
+     * Retrieves the arguments of the command, for the recipients that are not connections.
+     *
+     * @return The arguments, not to be modified.
+     */
+    public String[] getArgs() {
+        return args;
+    }
+
+    /**
+     * Retrieves the encoded message, encoding it on the first call for the format.
+     * Two threads may both encode it the first time, they get equal bytes.
+     *
+     * @param format The wire format of the recipient.
+     * @return The bytes to be written on the connection, not to be modified.
+     */
+    public byte[] encode(WireFormat format) {
+        if (format == WireFormat.TEXT) {
+            byte[] encoded = text;
+            if (encoded == null) text = encoded = format.encode(command, args);
+            return encoded;
+        }
+
+        byte[] encoded = binary;
+        if (encoded == null) binary = encoded = format.encode(command, args);
+        return encoded;
+    }
+}
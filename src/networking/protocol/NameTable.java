@@ -0,0 +1,82 @@
+package networking.protocol;
+
+import java.util.function.Function;
+
+/**
+ * Open addressing hash table from wire names to protocol constants.
+ * Lookups work directly on a slice of a char buffer so no String is created while parsing.
+ *
+ * @param <T> The type of the constants.
+ */
+public class NameTable<T> {
+
+    private final String[] keys;
+    private final Object[] values;
+    private final int mask;
+
+    public NameTable(T[] constants, Function<T, String> nameOf) {
+        int size = Integer.highestOneBit(Math.max(constants.length, 1) * 4 - 1) << 1; // load factor under 1/4
+        this.keys = new String[size];
+        this.values = new Object[size];
+        this.mask = size - 1;
+
+        for (T constant : constants) {
+            String name = nameOf.apply(constant);
+            int i = spread(name.hashCode()) & mask;
+            while (keys[i] != null) i = (i + 1) & mask;
+            keys[i] = name;
+            values[i] = constant;
+        }
+    }
+
+    /**
+     * Looks a name up.
+     *
+     * @param name The wire name.
+     * @return The constant with this name, or null if there is none.
+     */
+    public T get(String name) {
+        return find(name, name.hashCode());
+    }
+
+    /**
+     * Looks a slice of a char buffer up.
+     *
+     * @param chars The buffer holding the name.
+     * @param from The index of the first char of the name.
+     * @param to The index after the last char of the name.
+     * @return The constant with this name, or null if there is none.
+     */
+    public T get(char[] chars, int from, int to) {
+        int hash = 0;
+        for (int i = from; i < to; i++) hash = 31 * hash + chars[i]; // same hash as String
+        for (int i = spread(hash) & mask; keys[i] != null; i = (i + 1) & mask) {
+            if (matches(keys[i], chars, from, to)) return constant(i);
+        }
+        return null;
+    }
+
+    private T find(String name, int hash) {
+        for (int i = spread(hash) & mask; keys[i] != null; i = (i + 1) & mask) {
+            if (keys[i].equals(name)) return constant(i);
+        }
+        return null;
+    }
+
+    private static boolean matches(String key, char[] chars, int from, int to) {
+        if (key.length() != to - from) return false;
+        for (int i = 0; i < key.length(); i++) {
+            if (key.charAt(i) != chars[from + i]) return false;
+        }
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    private T constant(int index) {
+        return (T) values[index];
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
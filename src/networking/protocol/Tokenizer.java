@@ -0,0 +1,226 @@
+package networking.protocol;
+
+import logic.utils.Card;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Splits text protocol lines over a reusable char buffer.
+ * The arguments are read in place through a reused {@link Args} view: cards and numbers are parsed from the buffer
+ * and only the texts asked for are allocated.
+ * An instance is only used by the thread reading its connection.
+ */
+public class Tokenizer {
+
+    public static final char SEPARATOR = Command.SEPARATOR.charAt(0);
+
+    private static final NameTable<Card> CARDS = new NameTable<>(Card.values(), Card::name);
+    private static final char CARDS_SEPARATOR = ArgType.CARDS_SEPARATOR.charAt(0);
+
+    private char[] chars = new char[256];
+    private int length;
+    // index of every separator, then the end of the line
+    private int[] bounds = new int[8];
+    private int tokens;
+    private final Args args = Args.of(this);
+
+    /**
+     * Loads a UTF-8 line without its terminator.
+     *
+     * @param bytes The buffer holding the line.
+     * @param from The index of the first byte of the line.
+     * @param to The index after the last byte of the line.
+     */
+    public void load(byte[] bytes, int from, int to) {
+        ensureCapacity(to - from);
+        length = 0;
+        for (int i = from; i < to; i++) {
+            byte b = bytes[i];
+            if (b < 0) { // not ASCII, let the JDK decode it
+                load(new String(bytes, from, to - from, UTF_8));
+                return;
+            }
+            chars[length++] = (char) b;
+        }
+        split();
+    }
+
+    /**
+     * Loads a line.
+     *
+     * @param message The line without its terminator.
+     */
+    public void load(String message) {
+        ensureCapacity(message.length());
+        message.getChars(0, message.length(), chars, 0);
+        length = message.length();
+        split();
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (chars.length < capacity) chars = new char[Math.max(chars.length * 2, capacity)];
+    }
+
+    /**
+     * Finds the bounds of the tokens, trailing empty tokens are ignored like String.split does.
+     */
+    private void split() {
+        tokens = 0;
+        for (int i = 0; i < length; i++) {
+            if (chars[i] == SEPARATOR) addBound(i);
+        }
+        addBound(length);
+
+        while (tokens > 1 && bounds[tokens - 2] + 1 == bounds[tokens - 1]) tokens--;
+    }
+
+    private void addBound(int index) {
+        if (tokens == bounds.length) bounds = Arrays.copyOf(bounds, tokens * 2);
+        bounds[tokens++] = index;
+    }
+
+    /**
+     * Looks the first token up as an error.
+     *
+     * @return The error, or null if the line is not one.
+     */
+    public Error error() {
+        return Error.fromChars(chars, 0, bounds[0]);
+    }
+
+    /**
+     * Looks the first token up as a command.
+     *
+     * @return The command of the line.
+     * @throws IllegalArgumentException If the first token is not a command.
+     */
+    public Command command() throws IllegalArgumentException {
+        Command command = Command.fromChars(chars, 0, bounds[0]);
+        if (command == null) throw new IllegalArgumentException("unknown command: " + new String(chars, 0, bounds[0]));
+        return command;
+    }
+
+    /**
+     * Counts the arguments of the line without creating them.
+     *
+     * @return The number of arguments.
+     */
+    public int argCount() {
+        return tokens - 1;
+    }
+
+    /**
+     * Retrieves the arguments of the line, read in place until the next line is loaded.
+     *
+     * @return The view of the arguments, the same for every line.
+     */
+    public Args args() {
+        return args;
+    }
+
+    /**
+     * Creates an argument of the line, escaped new lines are restored.
+     *
+     * @param index The position of the argument.
+     * @return The argument.
+     */
+    String arg(int index) {
+        return arg(from(index), to(index));
+    }
+
+    /**
+     * Looks an argument of the line up as a card.
+     *
+     * @param index The position of the argument.
+     * @return The card, or null if the argument is empty.
+     * @throws IllegalArgumentException If the argument is not the name of a card.
+     */
+    Card card(int index) throws IllegalArgumentException {
+        return card(from(index), to(index));
+    }
+
+    /**
+     * Parses an argument of the line as a number.
+     *
+     * @param index The position of the argument.
+     * @return The number.
+     * @throws NumberFormatException If the argument is not a number.
+     */
+    int number(int index) throws NumberFormatException {
+        int from = from(index);
+        int to = to(index);
+        int start = from < to && (chars[from] == '-' || chars[from] == '+') ? from + 1 : from;
+        if (start == to || to - start > 10) throw new NumberFormatException("not a number: " + arg(from, to));
+        long value = 0;
+        for (int i = start; i < to; i++) {
+            if (chars[i] < '0' || chars[i] > '9') throw new NumberFormatException("not a number: " + arg(from, to));
+            value = value * 10 + (chars[i] - '0');
+        }
+        if (chars[from] == '-') value = -value;
+        if (value != (int) value) throw new NumberFormatException("out of range: " + arg(from, to));
+        return (int) value;
+    }
+
+    /**
+     * Looks an argument of the line up as cards separated by commas.
+     *
+     * @param index The position of the argument.
+     * @return The cards, in the order listed.
+     * @throws IllegalArgumentException If a name is not the name of a card.
+     */
+    List<Card> cards(int index) throws IllegalArgumentException {
+        List<Card> cards = new ArrayList<>();
+        int to = to(index);
+        for (int from = from(index); from < to; ) {
+            int end = from;
+            while (end < to && chars[end] != CARDS_SEPARATOR) end++;
+            if (end > from) cards.add(card(from, end));
+            from = end + 1;
+        }
+        return cards;
+    }
+
+    private int from(int index) {
+        if (index < 0 || index >= tokens - 1) throw new IndexOutOfBoundsException("no argument at " + index);
+        return bounds[index] + 1;
+    }
+
+    private int to(int index) {
+        return bounds[index + 1];
+    }
+
+    private Card card(int from, int to) throws IllegalArgumentException {
+        if (from == to) return null;
+        Card card = CARDS.get(chars, from, to);
+        if (card == null) throw new IllegalArgumentException("unknown card: " + new String(chars, from, to - from));
+        return card;
+    }
+
+    private String arg(int from, int to) {
+        Card card = CARDS.get(chars, from, to);
+        if (card != null) return card.name();
+
+        int escape = indexOfEscape(from, to);
+        if (escape < 0) return new String(chars, from, to - from);
+
+        StringBuilder arg = new StringBuilder(to - from).append(chars, from, escape - from);
+        for (int i = escape; i < to; i++) {
+            if (chars[i] == '\\' && i + 1 < to && chars[i + 1] == 'n') {
+                arg.append('\n');
+                i++;
+            } else arg.append(chars[i]);
+        }
+        return arg.toString();
+    }
+
+    private int indexOfEscape(int from, int to) {
+        for (int i = from; i + 1 < to; i++) {
+            if (chars[i] == '\\' && chars[i + 1] == 'n') return i;
+        }
+        return -1;
+    }
+}
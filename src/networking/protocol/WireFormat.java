@@ -0,0 +1,122 @@
+package networking.protocol;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static networking.protocol.Command.SEPARATOR;
+
+public enum WireFormat {
+    /**
+     * Pipe separated lines, ended by a new line.
+     */
+    TEXT,
+    /**
+     * Frames made of a u16 length, an opcode and the arguments encoded by their {@link ArgType}.
+     * The opcode is the command ordinal, or the error ordinal with ERROR_FLAG set.
+     */
+    BINARY;
+
+    public static final int ERROR_FLAG = 0x80;
+    public static final int MAX_FRAME_LENGTH = 0xFFFF;
+
+    private static final Command[] COMMANDS = Command.values();
+    private static final Error[] ERRORS = Error.values();
+
+    /**
+     * Encodes a command with its arguments.
+     *
+     * @param command The command to be encoded.
+     * @param args The arguments of the command.
+     * @return The bytes to be written on the connection.
+     * @throws IllegalArgumentException If an argument cannot be encoded.
+     */
+    public byte[] encode(Command command, String... args) throws IllegalArgumentException {
+        if (this == TEXT) return (command + SEPARATOR + String.join(SEPARATOR, args) + "\n").getBytes(UTF_8);
+
+        ByteArrayOutputStream out = startFrame(command.ordinal());
+        out.write(args.length);
+        for (int i = 0; i < args.length; i++) {
+            command.getArgType(i).write(out, args[i]);
+        }
+        return endFrame(out);
+    }
+
+    /**
+     * Encodes an error.
+     *
+     * @param error The error to be encoded.
+     * @return The bytes to be written on the connection.
+     */
+    public byte[] encode(Error error) {
+        if (this == TEXT) return (error + "\n").getBytes(UTF_8);
+        return endFrame(startFrame(ERROR_FLAG | error.ordinal()));
+    }
+
+    private static ByteArrayOutputStream startFrame(int opcode) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(32);
+        out.write(0); // length placeholder
+        out.write(0);
+        out.write(opcode);
+        return out;
+    }
+
+    private static byte[] endFrame(ByteArrayOutputStream out) {
+        byte[] frame = out.toByteArray();
+        int length = frame.length - 2;
+        if (length > MAX_FRAME_LENGTH) throw new IllegalArgumentException("frame too long");
+        frame[0] = (byte) (length >>> 8);
+        frame[1] = (byte) length;
+        return frame;
+    }
+
+    /**
+     * Reads the error of a binary frame, if it is one.
+     *
+     * @param frame The bytes of the frame, without its length.
+     * @param offset The start of the frame.
+     * @return The error, or null if the frame holds a command.
+     * @throws IllegalArgumentException If the opcode is unknown.
+     */
+    public static Error decodeError(byte[] frame, int offset) throws IllegalArgumentException {
+        int opcode = frame[offset] & 0xFF;
+        if ((opcode & ERROR_FLAG) == 0) return null;
+        if ((opcode & ~ERROR_FLAG) >= ERRORS.length) throw new IllegalArgumentException("unknown error opcode: " + opcode);
+        return ERRORS[opcode & ~ERROR_FLAG];
+    }
+
+    /**
+     * Reads the command of a binary frame.
+     *
+     * @param frame The bytes of the frame, without its length.
+     * @param offset The start of the frame.
+     * @return The command.
+     * @throws IllegalArgumentException If the opcode is unknown.
+     */
+    public static Command decodeCommand(byte[] frame, int offset) throws IllegalArgumentException {
+        int opcode = frame[offset] & 0xFF;
+        if (opcode >= COMMANDS.length) throw new IllegalArgumentException("unknown command opcode: " + opcode);
+        return COMMANDS[opcode];
+    }
+
+    /**
+     * Reads the arguments of a binary command frame.
+     *
+     * @param command The command of the frame.
+     * @param frame The bytes of the frame, without its length.
+     * @param offset The start of the frame.
+     * @param length The length of the frame.
+     * @return The arguments, the cards and numbers decoded straight from their codes.
+     * @throws IllegalArgumentException If the arguments are malformed.
+     */
+    public static Args decodeArgs(Command command, byte[] frame, int offset, int length) throws IllegalArgumentException {
+        if (length < 2) throw new IllegalArgumentException("missing argument count");
+        ByteBuffer in = ByteBuffer.wrap(frame, offset + 2, length - 2);
+        Args args = Args.ofBinary(command, frame[offset + 1] & 0xFF);
+        for (int i = 0; i < args.length(); i++) {
+            command.getArgType(i).read(in, args, i);
+        }
+        if (in.hasRemaining()) throw new IllegalArgumentException("trailing bytes after the arguments");
+        return args;
+    }
+}
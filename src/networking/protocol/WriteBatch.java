@@ -0,0 +1,64 @@
+package networking.protocol;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Groups the messages written by a thread during one step, such as a game event, so each connection is flushed once
+ * at the end of the step instead of once per message.
+ */
+public final class WriteBatch {
+
+    private static final ThreadLocal<WriteBatch> CURRENT = ThreadLocal.withInitial(WriteBatch::new);
+
+    private final Set<Handler> handlers = new LinkedHashSet<>();
+    private int depth;
+
+    private WriteBatch() {}
+
+    /**
+     * Starts a step on the current thread, steps can be nested and only the outermost one flushes.
+     */
+    public static void begin() {
+        CURRENT.get().depth++;
+    }
+
+    /**
+     * Ends a step on the current thread, flushing every connection written to during the step.
+     */
+    public static void end() {
+        WriteBatch batch = CURRENT.get();
+        if (--batch.depth > 0 || batch.handlers.isEmpty()) return;
+
+        Handler[] handlers = batch.handlers.toArray(new Handler[0]);
+        batch.handlers.clear();
+        for (Handler handler : handlers) handler.flush();
+    }
+
+    /**
+     * Runs a task as one step.
+     *
+     * @param task The task writing messages.
+     */
+    public static void run(Runnable task) {
+        begin();
+        try {
+            task.run();
+        } finally {
+            end();
+        }
+    }
+
+    /**
+     * Delays the flush of a connection to the end of the current step, if there is one.
+     *
+     * @param handler The handler of the connection written to.
+     * @return true if the flush is delayed, false if there is no step and the caller has to flush.
+     */
+    static boolean defer(Handler handler) {
+        WriteBatch batch = CURRENT.get();
+        if (batch.depth == 0) return false;
+        batch.handlers.add(handler);
+        return true;
+    }
+}
@@ -0,0 +1,77 @@
+package networking.server;
+
+import logic.utils.Card;
+import logic.utils.players.Player;
+import networking.protocol.Command;
+import networking.protocol.Error;
+import networking.protocol.Message;
+
+/**
+ * Seat of a game whose player is not connected, after a restart or while their session waits for them,
+ * nothing is sent to it.
+ */
+public class AbsentClientHandler extends ClientHandler {
+
+    private final String token;
+
+    /**
+     * Creates an empty seat of a restored game.
+     *
+     * @param name The name of the player of the seat.
+     * @param token The session token the client of the seat resumes it with.
+     */
+    public AbsentClientHandler(String name, String token) {
+        this(new Player(name), token);
+    }
+
+    /**
+     * Keeps the player of a client that lost its connection, with its hand.
+     *
+     * @param player The player of the client.
+     * @param token The session token the client was welcomed with.
+     */
+    public AbsentClientHandler(Player player, String token) {
+        this.token = token;
+        setPlayer(player);
+    }
+
+    @Override
+    public String getToken() {
+        return token;
+    }
+
+    @Override
+    public void run() {
+        // no connection to read from
+    }
+
+    @Override
+    public void sendCommand(Command command, String... args) {
+        // nobody to send to
+    }
+
+    @Override
+    public void send(Message message) {
+        // nobody to send to
+    }
+
+    @Override
+    public void sendError(Error error) {
+        // nobody to send to
+    }
+
+    @Override
+    public void sendState(Card topCard, int pileSize, boolean full) {
+        // nobody to send to
+    }
+
+    @Override
+    protected boolean isClosed() {
+        return true;
+    }
+
+    @Override
+    protected void close() {
+        // no connection to close
+    }
+}
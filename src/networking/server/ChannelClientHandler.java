@@ -0,0 +1,146 @@
+package networking.server;
+
+import metrics.Metrics;
+import networking.protocol.Command;
+import networking.protocol.WriteBatch;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ChannelClientHandler extends ClientHandler {
+
+    // most messages taken from the queue for one gathering write, the others stay under the outbound policy
+    public static final int MAX_GATHER = 64;
+
+    private final SocketChannel channel;
+    private final SelectorLoop loop;
+    private final AtomicBoolean flushScheduled;
+    private final AtomicInteger backlog; // messages queued or being written
+    private SelectionKey key;
+
+    // messages taken from the queue but not fully written yet, only used on the loop thread
+    private final ArrayDeque<ByteBuffer> writing;
+    private ByteBuffer[] gather;
+
+    public ChannelClientHandler(SocketChannel channel, SelectorLoop loop) {
+        this.channel = channel;
+        this.loop = loop;
+        this.flushScheduled = new AtomicBoolean(false);
+        this.backlog = new AtomicInteger();
+        this.writing = new ArrayDeque<>();
+        this.gather = new ByteBuffer[4];
+    }
+
+    void setKey(SelectionKey key) {
+        this.key = key;
+    }
+
+    /**
+     * Reads the bytes available on the channel and handles every complete frame.
+     * Called by the selector loop when the channel is readable.
+     */
+    @Override
+    public void run() {
+        ByteBuffer buffer = loop.getReadBuffer();
+        try {
+            if (channel.read(buffer) == -1) {
+                shutdown();
+                return;
+            }
+        } catch (IOException e) {
+            shutdown();
+            return;
+        }
+
+        boolean valid;
+        WriteBatch.begin(); // answers to the frames of one read are flushed together
+        try {
+            valid = frameReader.read(buffer.array(), 0, buffer.position());
+        } finally {
+            WriteBatch.end();
+        }
+        if (!valid) shutdown();
+    }
+
+    /**
+     * Queues a message for the client, the selector loop writes it to the channel when flushed.
+     *
+     * @param command The command of the message, null for an error.
+     * @param frame The bytes of the message.
+     */
+    @Override
+    protected boolean buffer(Command command, byte[] frame) throws IOException {
+        if (!super.buffer(command, frame)) return false;
+        backlog.incrementAndGet();
+        return true;
+    }
+
+    @Override
+    protected int getBacklog() {
+        return backlog.get();
+    }
+
+    /**
+     * Asks the selector loop to write the queued messages.
+     */
+    @Override
+    protected void flush() {
+        if (flushScheduled.compareAndSet(false, true)) loop.execute(this::writeQueued);
+    }
+
+    /**
+     * Writes the queued messages with a single gathering write, waiting for the channel to be writable again
+     * if it cannot take them all. Only MAX_GATHER messages are taken from the queue at once so a client
+     * that does not read lets its queue fill up. Only called on the selector loop thread.
+     */
+    void writeQueued() {
+        flushScheduled.set(false);
+        byte[] frame;
+        while (writing.size() < MAX_GATHER && (frame = outbound.poll()) != null) writing.add(ByteBuffer.wrap(frame));
+        if (writing.isEmpty()) return;
+
+        try {
+            if (gather.length < writing.size()) gather = new ByteBuffer[Math.max(gather.length * 2, writing.size())];
+            int count = 0;
+            for (ByteBuffer pending : writing) gather[count++] = pending;
+            channel.write(gather, 0, count);
+            Metrics.flushed();
+            Arrays.fill(gather, 0, count, null);
+
+            while (!writing.isEmpty() && !writing.peek().hasRemaining()) {
+                writing.poll();
+                backlog.decrementAndGet();
+            }
+            boolean pending = !writing.isEmpty() || outbound.size() > 0;
+            key.interestOps(pending ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+            if (!pending) drained();
+        } catch (IOException | CancelledKeyException e) {
+            shutdown();
+        }
+    }
+
+    @Override
+    protected void handleWriteError(IOException e) {
+        shutdown();
+    }
+
+    @Override
+    protected void close() {
+        outbound.clear();
+        loop.execute(writing::clear);
+        backlog.set(0);
+        try {
+            if (key != null) key.cancel();
+            channel.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
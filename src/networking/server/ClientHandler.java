@@ -1,67 +1,211 @@
 package networking.server;
 
+import logic.Game;
+import logic.Participant;
 import logic.utils.Card;
 import logic.utils.players.Player;
+import metrics.Metrics;
+import networking.protocol.Args;
 import networking.protocol.Command;
 import networking.protocol.Error;
+import networking.protocol.Feature;
 import networking.protocol.Handler;
+import networking.protocol.WireFormat;
 
-import java.io.*;
-import java.net.Socket;
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.regex.Pattern;
 
-public class ClientHandler extends Handler {
+public abstract class ClientHandler extends Handler implements Participant {
 
-    private final Socket socket;
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+    private final StateSync stateSync = new StateSync();
+    protected final OutboundQueue outbound = new OutboundQueue(ServerGame.getOutboundPolicy());
     private Player player;
+    private volatile Room room;
+    private volatile String token;
+    private volatile Spectator spectator;
 
-    public ClientHandler(Socket socket) {
-        this.socket = socket;
-        init(socket);
+    /**
+     * Closes a connection that dropped and removes the client from the server, its seat is kept for
+     * a grace period if it is playing. Only the first call has an effect.
+     */
+    protected void shutdown() {
+        shutdown(true);
     }
 
-    @Override
-    public void run() {
-        try {
-            String message;
-            while ((message = inputReader.readLine()) != null) {
-                handleCommand(message);
-            }
-        } catch (IOException ignored) {}
-        shutdown();
+    /**
+     * Closes the connection and removes the client from the server, only the first call has an effect.
+     *
+     * @param resumable Flag indicating whether the client may resume its session, false when it has left on purpose.
+     */
+    protected void shutdown(boolean resumable) {
+        if (!closed.compareAndSet(false, true)) return;
+        close();
+        ServerGame.removeClient(this, resumable);
     }
 
-    private void init(Socket socket) {
-        try {
-            inputReader = new BufferedReader(new InputStreamReader(socket.getInputStream()));
-            outputWriter = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream()));
-        } catch (IOException e) {
-            shutdown();
+    /**
+     * Queues a message without waiting for the connection, applying the outbound policy if the client lags behind.
+     * A client whose queue is full is disconnected, its seat is kept as for a dropped connection.
+     *
+     * @param command The command of the message, null for an error.
+     * @param frame The bytes of the message.
+     * @return true if the message has been queued, false if it has been dropped or merged with a queued state.
+     * @throws IOException If the connection is closed or its queue is full.
+     */
+    @Override
+    protected boolean buffer(Command command, byte[] frame) throws IOException {
+        if (isClosed()) throw new IOException("connection closed");
+        switch (outbound.offer(command, frame)) {
+            case DROPPED:
+                Metrics.chatDropped();
+                return false;
+            case COALESCED:
+                Metrics.stateCoalesced();
+                return false;
+            case OVERFLOW:
+                Metrics.slowConsumerDisconnected();
+                System.out.println((player == null ? "A client" : player.getName()) + " is too slow and has been disconnected");
+                throw new IOException("outbound queue full");
+            default:
+                return true;
         }
     }
 
-    private void shutdown() {
-        try {
-            inputReader.close();
-            outputWriter.close();
-            socket.close();
-        } catch (IOException e){
-            e.printStackTrace();
-        }
-        ServerGame.removeClient(this);
+    @Override
+    protected void handleWriteError(IOException e) {
+        shutdown();
     }
 
+    @Override
+    protected boolean isClosed() {
+        return closed.get();
+    }
+
+    /**
+     * Releases the resources of the underlying connection.
+     */
+    protected abstract void close();
+
+    @Override
     public Player getPlayer() {
         return player;
     }
 
+    /**
+     * Seats a player on this connection, used when a client takes back the seat of a restored game.
+     *
+     * @param player The player, with its hand.
+     */
+    void setPlayer(Player player) {
+        this.player = player;
+    }
+
+    /**
+     * Sends the state of the player to the client, as a delta if the client accepted them.
+     *
+     * @param topCard The last card played, if any.
+     * @param pileSize The number of cards left in the deck.
+     * @param full Flag indicating whether the full hand has to be sent.
+     */
+    @Override
+    public void sendState(Card topCard, int pileSize, boolean full) {
+        stateSync.send(this, topCard, pileSize, full);
+    }
+
+    /**
+     * Retrieves the token the client was welcomed with, presented to resume its session after a dropped connection.
+     *
+     * @return The session token, or null if the client has not been welcomed.
+     */
+    @Override
+    public String getToken() {
+        return token;
+    }
+
+    public Room getRoom() {
+        return room;
+    }
+
+    public void setRoom(Room room) {
+        this.room = room;
+    }
+
+    /**
+     * Retrieves the stream of the game the client is watching.
+     *
+     * @return The stream, or null if the client is not a spectator.
+     */
+    public Spectator getSpectator() {
+        return spectator;
+    }
+
+    void setSpectator(Spectator spectator) {
+        this.spectator = spectator;
+    }
+
+    /**
+     * Closes the stream of the game the client is watching, if it is still the given one.
+     *
+     * @param current The stream to close.
+     */
+    void stopWatching(Spectator current) {
+        if (spectator != current) return;
+        spectator = null;
+        current.close();
+    }
+
+    /**
+     * Retrieves the number of messages waiting to be written on the connection.
+     *
+     * @return The number of messages.
+     */
+    protected int getBacklog() {
+        return outbound.size();
+    }
+
+    /**
+     * Called once every message waiting on the connection has been written, resumes the stream of a spectator.
+     */
+    protected void drained() {
+        Spectator current = spectator;
+        if (current != null) current.resume();
+    }
+
+    /**
+     * Retrieves the running game of the room the client is seated in.
+     *
+     * @return The running game, or null if the client is not playing.
+     */
+    private Game getGame() {
+        Room currentRoom = room;
+        return currentRoom != null ? currentRoom.getGame() : null;
+    }
+
+    /**
+     * Posts the handling of a command to the loop of a game, its latency is recorded once the game has handled it.
+     *
+     * @param game The game of the client.
+     * @param command The command received.
+     * @param action The action of the game.
+     */
+    private void post(Game game, Command command, Runnable action) {
+        long received = defer();
+        game.execute(() -> {
+            action.run();
+            Metrics.commandHandled(command, received);
+        });
+    }
+
     /**
      * Handles the "Hello" command received from the client.
      *
      * @param handler The handler object.
-     * @param args    The name the client wishes to have.
+     * @param args    The name the client wishes to have, optionally followed by the features it asks for.
      */
-    public static void handleHello(Handler handler, String... args) {
+    public static void handleHello(Handler handler, Args args) {
         if (!(handler instanceof ClientHandler)) return;
         ClientHandler client = (ClientHandler) handler;
 
@@ -70,7 +214,7 @@ public class ClientHandler extends Handler {
             return;
         }
 
-        String name = args[0];
+        String name = args.get(0);
         Pattern pattern = Pattern.compile("^[a-zA-Z0-9]{1,12}$"); // check length and validity of characters
         if (!pattern.asMatchPredicate().test(name) || !ServerGame.isNameValid(name)) {
             client.sendError(Error.E2);
@@ -78,9 +222,86 @@ public class ClientHandler extends Handler {
         }
 
         client.player = new Player(name);
-        client.sendCommand(Command.WELCOME, name);
+        Set<Feature> features = args.length() == 2 ? Feature.parse(args.get(1)) : Set.of();
+        client.welcome(features);
         System.out.println("A new player has been created: " + name);
-        ServerGame.addPlayer();
+        ServerGame.addPlayer(client);
+    }
+
+    /**
+     * Handles the "Resume" command received from a client coming back after its connection dropped.
+     * The client takes its seat back and is sent the full state of the game.
+     *
+     * @param handler The handler object.
+     * @param args    The session token, optionally followed by the features it asks for.
+     */
+    public static void handleResume(Handler handler, Args args) {
+        if (!(handler instanceof ClientHandler)) return;
+        ClientHandler client = (ClientHandler) handler;
+
+        if (client.player != null) {
+            client.sendError(Error.E1);
+            return;
+        }
+
+        Set<Feature> features = args.length() == 2 ? Feature.parse(args.get(1)) : Set.of();
+        client.token = args.get(0);
+        if (ServerGame.resume(client, features) == null) {
+            client.token = null;
+            client.sendError(Error.E10);
+            return;
+        }
+        System.out.println(client.player.getName() + " has resumed their session");
+    }
+
+    /**
+     * Handles the "Watch" command received from a client that wishes to follow a game without playing.
+     *
+     * @param handler The handler object.
+     * @param args    The id of the room to watch, any running game if missing.
+     */
+    public static void handleWatch(Handler handler, Args args) {
+        if (!(handler instanceof ClientHandler)) return;
+        ClientHandler client = (ClientHandler) handler;
+
+        if (client.player != null || client.spectator != null) {
+            client.sendError(Error.E1);
+            return;
+        }
+
+        int id = -1;
+        if (args.length() == 1) {
+            try {
+                id = args.number(0);
+            } catch (NumberFormatException ignore) {
+                client.sendError(Error.E3);
+                return;
+            }
+        }
+
+        Spectator spectator = ServerGame.watch(client, id);
+        if (spectator == null) {
+            client.sendError(Error.E4);
+            return;
+        }
+        System.out.println("A spectator is watching room " + spectator.getRoom().getId());
+    }
+
+    /**
+     * Welcomes the named client with a new session token unless it resumes one, then switches to the accepted features.
+     *
+     * @param features The features accepted.
+     */
+    void welcome(Set<Feature> features) {
+        if (token == null) token = Session.newToken();
+        sendCommand(Command.WELCOME, player.getName(), Feature.join(features), token);
+
+        // switch after the welcome so it is still sent in text
+        if (features.contains(Feature.BINARY)) setFormat(WireFormat.BINARY);
+        if (features.contains(Feature.DELTA)) {
+            stateSync.enableDelta();
+            outbound.keepPlayersInOrder();
+        }
     }
 
     /**
@@ -89,11 +310,11 @@ public class ClientHandler extends Handler {
      * @param handler The handler object.
      * @param args    None.
      */
-    public static void handleExit(Handler handler, String... args) {
+    public static void handleExit(Handler handler, Args args) {
         if (!(handler instanceof ClientHandler)) return;
         ClientHandler client = (ClientHandler) handler;
 
-        client.shutdown();
+        client.shutdown(false);
     }
 
     /**
@@ -102,17 +323,19 @@ public class ClientHandler extends Handler {
      * @param handler The handler object.
      * @param args    The card to play;
      */
-    public static void handleMove(Handler handler, String... args) {
+    public static void handleMove(Handler handler, Args args) {
         if (!(handler instanceof ClientHandler)) return;
         ClientHandler client = (ClientHandler) handler;
 
-        if (ServerGame.hasEnded()) {
+        Game game = client.getGame();
+        if (game == null) {
             client.sendError(Error.E8);
             return;
         }
 
-        Card card = Card.valueOf(args[0]);
-        ServerGame.getGame().doMove(client, card);
+        Card card = args.card(0);
+        if (card == null) throw new IllegalArgumentException("missing card");
+        client.post(game, Command.MOVE, () -> game.doMove(client, card));
     }
 
     /**
@@ -121,16 +344,18 @@ public class ClientHandler extends Handler {
      * @param handler The handler object.
      * @param args    The target name;
      */
-    public static void handleTarget(Handler handler, String... args) {
+    public static void handleTarget(Handler handler, Args args) {
         if (!(handler instanceof ClientHandler)) return;
         ClientHandler client = (ClientHandler) handler;
 
-        if (ServerGame.hasEnded()) {
+        Game game = client.getGame();
+        if (game == null) {
             client.sendError(Error.E8);
             return;
         }
 
-        ServerGame.getGame().chooseTarget(client, args[0]);
+        String target = args.get(0);
+        client.post(game, Command.TARGET, () -> game.chooseTarget(client, target));
     }
 
     /**
@@ -139,17 +364,19 @@ public class ClientHandler extends Handler {
      * @param handler The handler object.
      * @param args    The card to give.
      */
-    public static void handleGive(Handler handler, String... args) {
+    public static void handleGive(Handler handler, Args args) {
         if (!(handler instanceof ClientHandler)) return;
         ClientHandler client = (ClientHandler) handler;
 
-        if (ServerGame.hasEnded()) {
+        Game game = client.getGame();
+        if (game == null) {
             client.sendError(Error.E8);
             return;
         }
 
-        Card card = Card.valueOf(args[0]);
-        ServerGame.getGame().giveCard(client, card);
+        Card card = args.card(0);
+        if (card == null) throw new IllegalArgumentException("missing card");
+        client.post(game, Command.GIVE, () -> game.giveCard(client, card));
     }
 
     /**
@@ -159,20 +386,24 @@ public class ClientHandler extends Handler {
      * @param handler The handler object.
      * @param args    The index to put the card at
      */
-    public static void handlePlace(Handler handler, String... args) {
+    public static void handlePlace(Handler handler, Args args) {
         if (!(handler instanceof ClientHandler)) return;
         ClientHandler client = (ClientHandler) handler;
 
-        if (ServerGame.hasEnded()) {
+        Game game = client.getGame();
+        if (game == null) {
             client.sendError(Error.E8);
             return;
         }
 
+        int index;
         try {
-            ServerGame.getGame().place(client, Card.EXPLODING_KITTEN, Integer.parseInt(args[0]));
+            index = args.number(0);
         } catch (NumberFormatException ignore) {
             client.sendError(Error.E3);
+            return;
         }
+        client.post(game, Command.PLACE, () -> game.place(client, Card.EXPLODING_KITTEN, index));
     }
 
     /**
@@ -181,15 +412,35 @@ public class ClientHandler extends Handler {
      * @param handler The handler object.
      * @param args    None.
      */
-    public static void handleDraw(Handler handler, String... args) {
+    public static void handleDraw(Handler handler, Args args) {
+        if (!(handler instanceof ClientHandler)) return;
+        ClientHandler client = (ClientHandler) handler;
+
+        Game game = client.getGame();
+        if (game == null) {
+            client.sendError(Error.E8);
+            return;
+        }
+
+        client.post(game, Command.CARD, () -> game.drawCard(client));
+    }
+
+    /**
+     * Handles the "Sync" command received from the client after it missed an update.
+     *
+     * @param handler The handler object.
+     * @param args    None.
+     */
+    public static void handleSync(Handler handler, Args args) {
         if (!(handler instanceof ClientHandler)) return;
         ClientHandler client = (ClientHandler) handler;
 
-        if (ServerGame.hasEnded()) {
+        Game game = client.getGame();
+        if (game == null) {
             client.sendError(Error.E8);
             return;
         }
 
-        ServerGame.getGame().drawCard(client);
+        client.post(game, Command.SYNC, () -> game.resync(client));
     }
 }
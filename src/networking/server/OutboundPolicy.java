@@ -0,0 +1,52 @@
+package networking.server;
+
+/**
+ * What a connection does as messages pile up in its outbound queue because the client does not read them fast enough.
+ * Past each limit the connection first drops the chat messages, then keeps only the latest full state of each kind
+ * instead of every one, and is disconnected once its queue is full.
+ */
+public class OutboundPolicy {
+
+    public static final int DEFAULT_CAPACITY = 1024; // messages
+    public static final OutboundPolicy DEFAULT = withCapacity(DEFAULT_CAPACITY);
+
+    private final int dropChatAt;
+    private final int coalesceAt;
+    private final int capacity;
+
+    /**
+     * @param dropChatAt The number of queued messages from which chat messages are dropped.
+     * @param coalesceAt The number of queued messages from which a full state replaces the one still queued.
+     * @param capacity The number of queued messages at which the connection is closed.
+     */
+    public OutboundPolicy(int dropChatAt, int coalesceAt, int capacity) {
+        if (dropChatAt > coalesceAt || coalesceAt > capacity || capacity <= 0)
+            throw new IllegalArgumentException("limits must grow up to a positive capacity");
+        this.dropChatAt = dropChatAt;
+        this.coalesceAt = coalesceAt;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Creates the policy of a queue of the given capacity, chat is dropped once it is a quarter full
+     * and states are coalesced once it is half full.
+     *
+     * @param capacity The number of queued messages at which the connection is closed.
+     * @return The policy.
+     */
+    public static OutboundPolicy withCapacity(int capacity) {
+        return new OutboundPolicy(capacity / 4, capacity / 2, capacity);
+    }
+
+    public int getDropChatAt() {
+        return dropChatAt;
+    }
+
+    public int getCoalesceAt() {
+        return coalesceAt;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+}
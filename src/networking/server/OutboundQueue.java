@@ -0,0 +1,113 @@
+package networking.server;
+
+import networking.protocol.Command;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded queue of the messages waiting to be written on a connection, filled by any thread without waiting
+ * and emptied by the single thread writing the connection. Once the queue grows the {@link OutboundPolicy}
+ * decides which messages are not worth waiting for.
+ */
+public class OutboundQueue {
+
+    public enum Result {
+        QUEUED,
+        DROPPED,   // a chat message not sent to a client lagging behind
+        COALESCED, // a full state replacing the previous one still queued
+        OVERFLOW   // the queue is full, the connection has to be closed
+    }
+
+    private final OutboundPolicy policy;
+    // frames, or the command of a pending state whose latest frame is in its slot
+    private final Queue<Object> entries;
+    private final AtomicReferenceArray<byte[]> states;
+    private final AtomicInteger size;
+    private volatile boolean coalescePlayers;
+
+    public OutboundQueue(OutboundPolicy policy) {
+        this.policy = policy;
+        this.entries = new ConcurrentLinkedQueue<>();
+        this.states = new AtomicReferenceArray<>(Command.values().length);
+        this.size = new AtomicInteger();
+        this.coalescePlayers = true;
+    }
+
+    /**
+     * Checks if the messages of a command describe the full state of the client, so only the latest one matters.
+     *
+     * @param command The command of the message.
+     * @return true for the state sent to spectators and the full hands unless they are kept in order, false otherwise.
+     */
+    public boolean isState(Command command) {
+        return command == Command.STATE || (command == Command.PLAYERS && coalescePlayers);
+    }
+
+    /**
+     * Keeps every full hand at its place in the queue, for a connection receiving deltas: a full hand moved
+     * ahead of the deltas queued before it would make each of them look out of order to the client.
+     */
+    public void keepPlayersInOrder() {
+        coalescePlayers = false;
+    }
+
+    /**
+     * Adds a message to the queue unless the policy leaves it out.
+     *
+     * @param command The command of the message, null for an error.
+     * @param frame The bytes of the message.
+     * @return What has been done with the message.
+     */
+    public Result offer(Command command, byte[] frame) {
+        int queued = size.get();
+        if (queued >= policy.getCapacity()) return Result.OVERFLOW;
+        if (command == Command.CHAT && queued >= policy.getDropChatAt()) return Result.DROPPED;
+
+        if (command != null && isState(command) && queued >= policy.getCoalesceAt()) {
+            // the writer takes the slot when it reaches the entry, a replaced state has not been written yet
+            if (states.getAndSet(command.ordinal(), frame) != null) return Result.COALESCED;
+            entries.add(command);
+        } else {
+            entries.add(frame);
+        }
+        size.incrementAndGet();
+        return Result.QUEUED;
+    }
+
+    /**
+     * Takes the oldest message of the queue, only called by the thread writing the connection.
+     *
+     * @return The bytes of the message, or null if the queue is empty.
+     */
+    public byte[] poll() {
+        Object entry;
+        while ((entry = entries.poll()) != null) {
+            size.decrementAndGet();
+            if (entry instanceof byte[]) return (byte[]) entry;
+            byte[] state = states.getAndSet(((Command) entry).ordinal(), null);
+            if (state != null) return state; // null only after a clear
+        }
+        return null;
+    }
+
+    /**
+     * Retrieves the number of messages in the queue.
+     *
+     * @return The queue depth.
+     */
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * Forgets every queued message once the connection is closed.
+     */
+    public void clear() {
+        entries.clear();
+        for (int i = 0; i < states.length(); i++) states.set(i, null);
+        size.set(0);
+    }
+}
@@ -0,0 +1,312 @@
+package networking.server;
+
+import logic.Audience;
+import logic.Deadlines;
+import logic.Game;
+import logic.journal.Entry;
+import logic.journal.Replay;
+import logic.journal.Snapshot;
+import metrics.Metrics;
+import networking.protocol.Command;
+import networking.protocol.ExecutionMode;
+import networking.protocol.Message;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+public class Room {
+
+    private final int id;
+    private final int capacity;
+    private final long nopeDelay;
+    private final Deadlines deadlines;
+    private final List<ClientHandler> clientHandlers;
+    private final List<Spectator> spectators;
+    private final Audience audience;
+    private final RoomManager manager;
+    private volatile Game game;
+    private boolean started;
+    private volatile long startTime;
+
+    /**
+     * @param id The identifier of the room.
+     * @param capacity The number of players of the game.
+     * @param nopeDelay The time given to nope a card in the game, in milliseconds.
+     * @param deadlines The time given to the players to answer the game.
+     * @param manager The manager hosting the room.
+     */
+    public Room(int id, int capacity, long nopeDelay, Deadlines deadlines, RoomManager manager) {
+        this.id = id;
+        this.capacity = capacity;
+        this.nopeDelay = nopeDelay;
+        this.deadlines = deadlines;
+        this.manager = manager;
+        this.clientHandlers = Collections.synchronizedList(new ArrayList<>());
+        this.spectators = new CopyOnWriteArrayList<>();
+        this.audience = new Audience() {
+            @Override
+            public boolean isEmpty() {
+                return spectators.isEmpty();
+            }
+
+            @Override
+            public void send(Message message) {
+                spectators.forEach(spectator -> spectator.offer(message));
+            }
+        };
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Retrieves the time given to nope a card in the game of this room.
+     *
+     * @return The delay, in milliseconds.
+     */
+    public long getNopeDelay() {
+        return nopeDelay;
+    }
+
+    /**
+     * Checks if the room still accepts new players.
+     *
+     * @return true if the game has not started and there is a seat left, false otherwise.
+     */
+    public synchronized boolean isOpen() {
+        return !started && clientHandlers.size() < capacity;
+    }
+
+    /**
+     * Seats a client in the room, closing it once the room is full.
+     *
+     * @param clientHandler The client handler joining the room.
+     * @return true if the room is now full and its game should be started, false otherwise.
+     */
+    public synchronized boolean seat(ClientHandler clientHandler) {
+        clientHandlers.add(clientHandler);
+        clientHandler.setRoom(this);
+        started = clientHandlers.size() >= capacity;
+        return started;
+    }
+
+    /**
+     * Creates the game of this room and starts it.
+     */
+    public void start() {
+        Game newGame = new Game(clientHandlers, this::end);
+        newGame.setJournal(ServerGame.getJournal());
+        newGame.setNopeDelay(nopeDelay);
+        newGame.setDeadlines(deadlines);
+        newGame.setAudience(audience);
+        game = newGame;
+        startTime = System.nanoTime();
+        System.out.println("The game of room " + id + " is starting with seed " + newGame.getSeed() + "...");
+        newGame.execute(newGame::startGame);
+        ServerGame.snapshot(newGame); // keeps the session tokens of the seats from the start
+    }
+
+    /**
+     * Recreates the game of this room from its latest snapshot, or from its start if it has none,
+     * and the records journaled after it. The seats stay empty until their players come back.
+     *
+     * @param names The names of the seats, in the order of the start of the game.
+     * @param tokens The session tokens of the seats, in the same order.
+     * @param seed The seed of the game.
+     * @param snapshot The latest snapshot of the game, if any.
+     * @param records The records of the game journaled after the snapshot, or since its start.
+     * @return The empty seats, in the order of the names.
+     */
+    public synchronized List<AbsentClientHandler> restore(List<String> names, List<String> tokens, long seed,
+                                                          Snapshot snapshot, List<Entry> records) {
+        List<AbsentClientHandler> seats = new ArrayList<>();
+        for (int seat = 0; seat < names.size(); seat++) {
+            AbsentClientHandler absent = new AbsentClientHandler(names.get(seat), tokens.get(seat));
+            absent.setRoom(this);
+            seats.add(absent);
+        }
+        clientHandlers.addAll(seats);
+        started = true;
+        startTime = System.nanoTime(); // only the time since the restart is known
+
+        Game newGame = snapshot != null
+                ? new Game(snapshot, clientHandlers, this::end, ExecutionMode.current().executor(), Game.DELAYED_SCHEDULER)
+                : new Game(clientHandlers, this::end, ExecutionMode.current().executor(), Game.DELAYED_SCHEDULER, seed);
+        game = newGame;
+        newGame.setNopeDelay(nopeDelay);
+        newGame.setDeadlines(deadlines);
+        newGame.setAudience(audience);
+        newGame.execute(() -> Replay.apply(newGame, records, records.size(), ServerGame.getJournal()));
+        return seats;
+    }
+
+    /**
+     * Gives a connected client an empty seat of the running game, with its player.
+     * The client is sent the full state and what the game is waiting for from it.
+     *
+     * @param clientHandler The client handler taking the seat.
+     * @param seat The empty seat.
+     * @return true if the client has taken the seat, false if the game has ended.
+     */
+    public boolean takeOver(ClientHandler clientHandler, AbsentClientHandler seat) {
+        Game currentGame = game;
+        if (currentGame == null) return false;
+
+        clientHandler.setPlayer(seat.getPlayer());
+        clientHandler.setRoom(this);
+        replace(currentGame, seat, clientHandler);
+        return true;
+    }
+
+    /**
+     * Empties the seat of a client whose connection dropped, the game goes on with its player until someone takes
+     * the seat back or the seat leaves.
+     *
+     * @param clientHandler The client handler that lost its connection.
+     * @return The empty seat holding the player, or null if the game has ended or the player is out of it.
+     */
+    public AbsentClientHandler suspend(ClientHandler clientHandler) {
+        Game currentGame = game;
+        if (currentGame == null || !clientHandlers.contains(clientHandler)) return null;
+
+        AbsentClientHandler seat = new AbsentClientHandler(clientHandler.getPlayer(), clientHandler.getToken());
+        seat.setRoom(this);
+        clientHandler.setRoom(null);
+        replace(currentGame, clientHandler, seat);
+        return seat;
+    }
+
+    /**
+     * Swaps a participant of the game for another one on the loop of the game.
+     *
+     * @param currentGame The running game.
+     * @param seat The participant leaving the seat.
+     * @param replacement The participant taking the seat.
+     */
+    private void replace(Game currentGame, ClientHandler seat, ClientHandler replacement) {
+        currentGame.execute(() -> {
+            synchronized (clientHandlers) {
+                int index = clientHandlers.indexOf(seat);
+                if (index >= 0) clientHandlers.set(index, replacement);
+            }
+            currentGame.takeOver(seat, replacement);
+        });
+    }
+
+    /**
+     * Lets a client follow the game of the room without playing. The spectator is first sent the public state
+     * of the game, then every public message, both from the loop of the game so nothing is missed in between.
+     *
+     * @param clientHandler The client handler of the spectator.
+     * @return The stream of the spectator, or null if there is no running game.
+     */
+    public Spectator watch(ClientHandler clientHandler) {
+        Game currentGame = game;
+        if (currentGame == null) return null;
+
+        Spectator spectator = new Spectator(clientHandler, this);
+        clientHandler.setSpectator(spectator);
+        currentGame.execute(() -> {
+            spectator.offer(currentGame.describe());
+            spectators.add(spectator);
+        });
+        return spectator;
+    }
+
+    /**
+     * Removes a spectator from the audience of the game.
+     *
+     * @param spectator The stream of the spectator.
+     */
+    public void unwatch(Spectator spectator) {
+        spectators.remove(spectator);
+    }
+
+    /**
+     * Retrieves the number of clients watching the game of the room.
+     *
+     * @return The number of spectators.
+     */
+    public int getSpectatorCount() {
+        return spectators.size();
+    }
+
+    /**
+     * Removes a client from the room, making them lose if the game is running.
+     *
+     * @param clientHandler The client handler leaving the room.
+     */
+    public void leave(ClientHandler clientHandler) {
+        Game currentGame = game;
+        if (currentGame != null) currentGame.execute(() -> currentGame.gameOver(clientHandler));
+        else synchronized (this) {
+            clientHandlers.remove(clientHandler);
+        }
+        clientHandler.setRoom(null);
+    }
+
+    /**
+     * Sends a command to all clients seated in the room.
+     *
+     * @param ignoreClient The client that should not receive the command, if any.
+     * @param command The command to be sent.
+     * @param args Additional arguments for the command, if any.
+     */
+    public void broadcast(ClientHandler ignoreClient, Command command, String... args) {
+        List<ClientHandler> recipients;
+        synchronized (clientHandlers) {
+            recipients = new ArrayList<>(clientHandlers);
+        }
+        Message message = Message.of(command, args); // encoded once for all the clients
+        recipients.stream()
+            .filter(clientHandler -> !clientHandler.equals(ignoreClient))
+            .forEach(clientHandler -> clientHandler.send(message));
+        audience.send(message);
+    }
+
+    /**
+     * Retrieves the game played in this room.
+     *
+     * @return The game, or null if it has not started or has ended.
+     */
+    public Game getGame() {
+        return game;
+    }
+
+    /**
+     * Determines if the game of the room is not running.
+     *
+     * @return true if there is no running game, false otherwise.
+     */
+    public boolean hasEnded() {
+        return game == null;
+    }
+
+    /**
+     * Ends the game of the room, releases the remaining clients and hands the room back to the manager.
+     */
+    private void end() {
+        Game endedGame = game;
+        game = null;
+        Metrics.gameEnded(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+        ServerGame.forget(endedGame);
+        List<ClientHandler> remaining;
+        synchronized (clientHandlers) {
+            remaining = new ArrayList<>(clientHandlers);
+            clientHandlers.clear();
+        }
+        remaining.forEach(clientHandler -> {
+            clientHandler.getPlayer().reset();
+            clientHandler.setRoom(null);
+        });
+        audience.send(Message.of(Command.NOTIFY, "The game of room " + id + " has ended"));
+        spectators.forEach(spectator -> spectator.getClientHandler().stopWatching(spectator));
+        spectators.clear();
+        manager.reclaim(this);
+        System.out.println("The game of room " + id + " has ended");
+    }
+}
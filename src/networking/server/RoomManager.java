@@ -0,0 +1,282 @@
+package networking.server;
+
+import logic.Deadlines;
+import logic.Game;
+import logic.Scheduler;
+import logic.journal.Entry;
+import logic.journal.Snapshot;
+import networking.protocol.Command;
+import networking.protocol.Feature;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+public class RoomManager {
+
+    private final int roomCapacity;
+    private final Map<Integer, Room> rooms;
+    private final Map<String, Session> sessions; // seats of dropped connections by their tokens
+    private final Scheduler scheduler;
+    private final AtomicInteger nextId;
+    private volatile long nopeDelay;
+    private volatile Deadlines deadlines;
+    private Room openRoom;
+
+    public RoomManager(int roomCapacity) {
+        this(roomCapacity, Game.DELAYED_SCHEDULER);
+    }
+
+    /**
+     * @param roomCapacity The number of players of each game.
+     * @param scheduler The scheduler ending the grace periods of the dropped connections.
+     */
+    public RoomManager(int roomCapacity, Scheduler scheduler) {
+        this.roomCapacity = roomCapacity;
+        this.scheduler = scheduler;
+        this.rooms = new ConcurrentHashMap<>();
+        this.sessions = new ConcurrentHashMap<>();
+        this.nextId = new AtomicInteger(1);
+        this.nopeDelay = TimeUnit.SECONDS.toMillis(Game.NOPE_DELAY);
+        this.deadlines = Deadlines.DEFAULT;
+    }
+
+    /**
+     * Changes the time given to nope a card in the rooms opened from now on.
+     *
+     * @param nopeDelay The delay, in milliseconds.
+     */
+    public void setNopeDelay(long nopeDelay) {
+        this.nopeDelay = nopeDelay;
+    }
+
+    /**
+     * Changes the time given to the players to answer the games of the rooms opened from now on.
+     *
+     * @param deadlines The deadline of each interaction.
+     */
+    public void setDeadlines(Deadlines deadlines) {
+        this.deadlines = deadlines;
+    }
+
+    /**
+     * Seats a named client in the room currently waiting for players, opening a new room if needed.
+     *
+     * @param clientHandler The client handler to be seated.
+     * @return The room the client has joined.
+     */
+    public Room assign(ClientHandler clientHandler) {
+        Room room;
+        boolean full;
+        synchronized (this) {
+            if (openRoom == null || !openRoom.isOpen()) {
+                openRoom = new Room(nextId.getAndIncrement(), roomCapacity, nopeDelay, deadlines, this);
+                rooms.put(openRoom.getId(), openRoom);
+            }
+            room = openRoom;
+            full = room.seat(clientHandler);
+        }
+
+        clientHandler.sendCommand(Command.NOTIFY, "You have been placed in room " + room.getId());
+        room.broadcast(clientHandler, Command.NOTIFY, clientHandler.getPlayer().getName() + " has joined the room");
+        if (full) room.start();
+        return room;
+    }
+
+    /**
+     * Keeps the seat of a client whose connection dropped during a game for a grace period,
+     * the player leaves the game if the client has not resumed its session by then.
+     *
+     * @param clientHandler The client handler that lost its connection.
+     * @param token The session token the client was welcomed with.
+     * @param grace The grace period, in seconds.
+     * @return true if the seat is kept, false if the client is not playing.
+     */
+    public boolean suspend(ClientHandler clientHandler, String token, long grace) {
+        Room room = clientHandler.getRoom();
+        if (room == null) return false;
+        AbsentClientHandler seat = room.suspend(clientHandler);
+        if (seat == null) return false;
+
+        keep(new Session(token, room, seat), grace);
+        return true;
+    }
+
+    /**
+     * Waits for the client of a session to resume it, the player leaves the game once the grace period is over.
+     *
+     * @param session The session of the empty seat.
+     * @param grace The grace period, in seconds.
+     */
+    private void keep(Session session, long grace) {
+        sessions.put(session.getToken(), session);
+        session.setExpiry(scheduler.schedule(() -> expire(session), grace, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Makes the player of a session that has not been resumed in time leave its game.
+     *
+     * @param session The session whose grace period is over.
+     */
+    private void expire(Session session) {
+        if (!sessions.remove(session.getToken(), session)) return; // resumed in the meantime
+        AbsentClientHandler seat = session.getSeat();
+        session.getRoom().leave(seat);
+        session.getRoom().broadcast(seat, Command.NOTIFY, seat.getPlayer().getName() + " has not come back and left the game");
+    }
+
+    /**
+     * Gives a client the seat of the session whose token it presents, with the player and the hand it had.
+     * The client is welcomed before taking the seat so the state of the game follows the welcome.
+     *
+     * @param clientHandler The client handler of the new connection, holding the token presented.
+     * @param features The features the client asks for.
+     * @return The room of the session, or null if the token is unknown, has expired or its game has ended.
+     */
+    public Room resume(ClientHandler clientHandler, Set<Feature> features) {
+        Session session = sessions.remove(clientHandler.getToken());
+        if (session == null) return null;
+        session.cancel();
+
+        Room room = session.getRoom();
+        if (room.hasEnded()) return null;
+        clientHandler.setPlayer(session.getSeat().getPlayer());
+        clientHandler.welcome(features);
+        if (!room.takeOver(clientHandler, session.getSeat())) return null;
+        clientHandler.sendCommand(Command.NOTIFY, "You are back in room " + room.getId());
+        room.broadcast(clientHandler, Command.NOTIFY, clientHandler.getPlayer().getName() + " is back");
+        return room;
+    }
+
+    /**
+     * Lets a client watch the game of a room.
+     *
+     * @param clientHandler The client handler of the spectator.
+     * @param id The id of the room, or -1 for any room whose game is running.
+     * @return The stream of the spectator, or null if the room has no running game.
+     */
+    public Spectator watch(ClientHandler clientHandler, int id) {
+        Room room = id < 0
+            ? rooms.values().stream().filter(candidate -> candidate.getGame() != null).findFirst().orElse(null)
+            : rooms.get(id);
+        if (room == null || room.getGame() == null) return null;
+
+        clientHandler.sendCommand(Command.NOTIFY, "You are watching room " + room.getId());
+        return room.watch(clientHandler);
+    }
+
+    /**
+     * Checks if a name belongs to a player whose session waits for them.
+     *
+     * @param name The name of the player.
+     * @return true if a session of that name can still be resumed, false otherwise.
+     */
+    public boolean isWaiting(String name) {
+        return sessions.values().stream().anyMatch(session -> session.getSeat().getPlayer().getName().equals(name));
+    }
+
+    /**
+     * Opens a room for a game restored after a restart. Its players take their seats back by resuming the sessions
+     * kept in the snapshot, like after a dropped connection, and leave the game if they have not within the grace period.
+     * A seat without a known token, such as one of a game restored from its start, can only expire.
+     *
+     * @param names The names of the seats, in the order of the start of the game.
+     * @param seed The seed of the game.
+     * @param snapshot The latest snapshot of the game, if any.
+     * @param records The records of the game journaled after the snapshot, or since its start.
+     * @param grace The time given to the players to come back, in seconds.
+     * @return The room of the game.
+     */
+    public Room restore(List<String> names, long seed, Snapshot snapshot, List<Entry> records, long grace) {
+        List<String> tokens = new ArrayList<>();
+        for (int seat = 0; seat < names.size(); seat++) {
+            String token = snapshot != null ? snapshot.getToken(seat) : "";
+            tokens.add(token.isEmpty() ? Session.newToken() : token); // a new token is known to nobody
+        }
+
+        Room room = new Room(nextId.getAndIncrement(), names.size(), nopeDelay, deadlines, this);
+        rooms.put(room.getId(), room);
+        List<AbsentClientHandler> seats = room.restore(names, tokens, seed, snapshot, records);
+        for (int seat = 0; seat < seats.size(); seat++) {
+            if (snapshot != null && snapshot.isOut(seat)) continue;
+            keep(new Session(tokens.get(seat), room, seats.get(seat)), grace);
+        }
+        return room;
+    }
+
+    /**
+     * Runs an action on the game of every room where one is running.
+     *
+     * @param action The action, given each running game.
+     */
+    public void forEachGame(Consumer<Game> action) {
+        for (Room room : rooms.values()) {
+            Game game = room.getGame();
+            if (game != null) action.accept(game);
+        }
+    }
+
+    /**
+     * Forgets a room whose game has ended so it can be garbage collected.
+     *
+     * @param room The room to be reclaimed.
+     */
+    public void reclaim(Room room) {
+        rooms.remove(room.getId());
+        sessions.values().removeIf(session -> {
+            if (session.getRoom() != room) return false;
+            session.cancel();
+            return true;
+        });
+        synchronized (this) {
+            if (openRoom == room) openRoom = null;
+        }
+    }
+
+    /**
+     * Retrieves the number of rooms whose game is running.
+     *
+     * @return The number of games.
+     */
+    public int getGameCount() {
+        int count = 0;
+        for (Room room : rooms.values()) {
+            if (room.getGame() != null) count++;
+        }
+        return count;
+    }
+
+    /**
+     * Retrieves the number of sessions waiting for their client to come back.
+     *
+     * @return The number of sessions.
+     */
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    /**
+     * Retrieves the number of clients watching a game.
+     *
+     * @return The number of spectators.
+     */
+    public int getSpectatorCount() {
+        int count = 0;
+        for (Room room : rooms.values()) count += room.getSpectatorCount();
+        return count;
+    }
+
+    /**
+     * Retrieves the number of rooms currently tracked, waiting or playing.
+     *
+     * @return The number of rooms.
+     */
+    public int getRoomCount() {
+        return rooms.size();
+    }
+}
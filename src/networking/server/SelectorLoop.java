@@ -0,0 +1,90 @@
+package networking.server;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+public class SelectorLoop implements Runnable {
+
+    public static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    private final Selector selector;
+    private final Queue<Runnable> tasks;
+    // shared by every connection of the loop, connections only keep the bytes of an unfinished line
+    private final ByteBuffer readBuffer;
+
+    public SelectorLoop() throws IOException {
+        this.selector = Selector.open();
+        this.tasks = new ConcurrentLinkedQueue<>();
+        this.readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+    }
+
+    /**
+     * Hands an accepted channel over to this loop, which will read from and write to it.
+     *
+     * @param channel The accepted channel.
+     */
+    public void register(SocketChannel channel) {
+        execute(() -> {
+            try {
+                channel.configureBlocking(false);
+                ChannelClientHandler clientHandler = new ChannelClientHandler(channel, this);
+                clientHandler.setKey(channel.register(selector, SelectionKey.OP_READ, clientHandler));
+                ServerGame.register(clientHandler);
+            } catch (IOException e) {
+                try {
+                    channel.close();
+                } catch (IOException ignored) {}
+            }
+        });
+    }
+
+    /**
+     * Runs a task on the loop thread, waking the selector up if needed.
+     *
+     * @param task The task to be run.
+     */
+    public void execute(Runnable task) {
+        tasks.add(task);
+        selector.wakeup();
+    }
+
+    /**
+     * Retrieves the read buffer shared by the connections of the loop, only valid on the loop thread.
+     *
+     * @return The cleared read buffer.
+     */
+    ByteBuffer getReadBuffer() {
+        return readBuffer.clear();
+    }
+
+    @Override
+    public void run() {
+        while (selector.isOpen()) {
+            try {
+                selector.select();
+            } catch (IOException e) {
+                e.printStackTrace();
+                return;
+            }
+
+            Runnable task;
+            while ((task = tasks.poll()) != null) task.run();
+
+            Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+            while (keys.hasNext()) {
+                SelectionKey key = keys.next();
+                keys.remove();
+                ChannelClientHandler clientHandler = (ChannelClientHandler) key.attachment();
+                if (!key.isValid()) continue;
+                if (key.isWritable()) clientHandler.writeQueued();
+                if (key.isValid() && key.isReadable()) clientHandler.run();
+            }
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package networking.server;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+
+public class SelectorServer implements Runnable {
+
+    private final ServerSocketChannel serverChannel;
+    private final SelectorLoop[] loops;
+    private int nextLoop;
+
+    public SelectorServer(int port, int ioThreads) throws IOException {
+        this.serverChannel = ServerSocketChannel.open();
+        this.serverChannel.bind(new InetSocketAddress(port));
+        this.loops = new SelectorLoop[ioThreads];
+        for (int i = 0; i < ioThreads; i++) {
+            loops[i] = new SelectorLoop();
+            Thread thread = new Thread(loops[i], "selector-" + i);
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    /**
+     * Accepts connections and spreads them over the selector loops in a round-robin fashion.
+     */
+    @Override
+    public void run() {
+        try {
+            while (serverChannel.isOpen()) {
+                SocketChannel channel = serverChannel.accept();
+                System.out.println("New client connection");
+                loops[nextLoop].register(channel);
+                nextLoop = (nextLoop + 1) % loops.length;
+            }
+        } catch (IOException ignored) {}
+    }
+}
@@ -1,71 +1,301 @@
 package networking.server;
 
+import logic.Deadlines;
 import logic.Game;
+import logic.journal.Entry;
+import logic.journal.Event;
+import logic.journal.Journal;
+import logic.journal.JournalReader;
+import logic.journal.MappedJournal;
+import logic.journal.Replay;
+import logic.journal.Snapshot;
+import logic.journal.SnapshotStore;
 import logic.utils.players.Player;
+import metrics.Metrics;
+import metrics.MetricsEndpoint;
+import metrics.ServerMetrics;
 import networking.protocol.Command;
+import networking.protocol.ExecutionMode;
+import networking.protocol.Feature;
+import networking.protocol.Handler;
 
 import java.io.IOException;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 
 public class ServerGame {
 
     public static final int PORT = 25500;
     public static final int PLAYER_COUNT = 2;
+    public static final int IO_THREADS = Runtime.getRuntime().availableProcessors();
+    public static final int SNAPSHOT_INTERVAL = 30;
+    // seconds a dropped player keeps their seat, waiting for their client to resume the session
+    public static final int SESSION_GRACE = 60;
     private static final List<ClientHandler> clientList = Collections.synchronizedList(new ArrayList<>());
-    private static Game game;
+    private static final RoomManager rooms = new RoomManager(PLAYER_COUNT);
+    private static volatile OutboundPolicy outboundPolicy = OutboundPolicy.DEFAULT;
+    private static final ScheduledExecutorService SNAPSHOT_SCHEDULER = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "snapshot-scheduler");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static Journal journal = Journal.NONE;
+    private static MappedJournal mappedJournal;
+    private static SnapshotStore snapshots;
 
 
 
     public static void main(String[] args) {
         try {
-            ServerSocket serverSocket = new ServerSocket(PORT);
-            System.out.println("Server started at port " + PORT);
+            int nopeArg = Arrays.asList(args).indexOf("-nope");
+            if (nopeArg >= 0 && nopeArg + 1 < args.length) rooms.setNopeDelay(Long.parseLong(args[nopeArg + 1]));
+            int deadlinesArg = Arrays.asList(args).indexOf("-deadlines");
+            if (deadlinesArg >= 0 && deadlinesArg + 1 < args.length) rooms.setDeadlines(Deadlines.parse(args[deadlinesArg + 1]));
+            int outboundArg = Arrays.asList(args).indexOf("-outbound");
+            if (outboundArg >= 0 && outboundArg + 1 < args.length)
+                outboundPolicy = OutboundPolicy.withCapacity(Integer.parseInt(args[outboundArg + 1]));
+            int flushArg = Arrays.asList(args).indexOf("-flush");
+            if (flushArg >= 0 && flushArg + 1 < args.length) Handler.setMaxFlushDelay(Integer.parseInt(args[flushArg + 1]));
+            int metricsArg = Arrays.asList(args).indexOf("-metrics");
+            if (metricsArg >= 0) {
+                boolean hasPort = metricsArg + 1 < args.length && args[metricsArg + 1].matches("\\d+");
+                openMetrics(hasPort ? Integer.parseInt(args[metricsArg + 1]) : MetricsEndpoint.DEFAULT_PORT);
+            }
+            int journalArg = Arrays.asList(args).indexOf("-journal");
+            if (journalArg >= 0 && journalArg + 1 < args.length) openJournal(args[journalArg + 1]);
+
+            // virtual threads make the blocking transport cheap enough to keep a thread per client
+            if (Arrays.asList(args).contains("-blocking") || ExecutionMode.select(args) == ExecutionMode.VIRTUAL) {
+                ServerSocket serverSocket = new ServerSocket(PORT);
+                System.out.println(
+                    "Server started at port " + PORT + " with a " + ExecutionMode.current().name().toLowerCase() + " thread per client"
+                );
 
-            while (true) {
-                Thread.sleep(100);
-                if (clientList.size() < PLAYER_COUNT) register(serverSocket.accept());
+                while (true) {
+                    register(serverSocket.accept());
+                }
             }
-        } catch (IOException | InterruptedException ignored) {}
+
+            SelectorServer server = new SelectorServer(PORT, IO_THREADS);
+            System.out.println("Server started at port " + PORT + " with " + IO_THREADS + " selector threads");
+            server.run();
+        } catch (IOException ignored) {}
     }
 
     /**
-     * Registers a new client connection.
+     * Registers the gauges of the server, exposes the metrics over JMX and serves them as text on a port.
+     *
+     * @param port The port of the metrics endpoint.
+     * @throws IOException If the port cannot be bound.
+     */
+    private static void openMetrics(int port) throws IOException {
+        Metrics.gauge("connections", clientList::size);
+        Metrics.gauge("rooms", rooms::getRoomCount);
+        Metrics.gauge("games", rooms::getGameCount);
+        Metrics.gauge("waiting_sessions", rooms::getSessionCount);
+        Metrics.gauge("spectators", rooms::getSpectatorCount);
+        Metrics.gauge("pending_timers", Game.DELAYED_SCHEDULER::getPendingCount);
+        Metrics.gauge("outbound_queued", () -> outboundDepths().sum());
+        Metrics.gauge("outbound_queue_max", () -> outboundDepths().max().orElse(0));
+        ServerMetrics.register();
+        MetricsEndpoint.start(port);
+        System.out.println("Serving the metrics at http://localhost:" + port + MetricsEndpoint.PATH);
+    }
+
+    /**
+     * Reads the number of messages waiting to be written on each connection.
+     *
+     * @return The queue depths.
+     */
+    private static LongStream outboundDepths() {
+        List<ClientHandler> clients;
+        synchronized (clientList) {
+            clients = new ArrayList<>(clientList);
+        }
+        return clients.stream().mapToLong(ClientHandler::getBacklog);
+    }
+
+    /**
+     * Opens the journal of the games in a folder with their snapshots, resumes the games that were running
+     * and takes a snapshot of every game each SNAPSHOT_INTERVAL seconds. The checkpoint of a round is written
+     * once all of its snapshots are, so a crash in between still reads the segments the older games started in.
+     * The journal and the snapshots are flushed and closed when the server stops.
+     *
+     * @param folder The folder of the journal.
+     * @throws IOException If the journal cannot be created.
+     */
+    private static void openJournal(String folder) throws IOException {
+        Path path = Paths.get(folder);
+        SnapshotStore store = new SnapshotStore(path.resolve("snapshots"));
+        MappedJournal segments = new MappedJournal(path);
+        journal = segments;
+        mappedJournal = segments;
+        snapshots = store;
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                segments.close();
+            } catch (IOException ignored) {}
+            store.close();
+        }));
+        System.out.println("Journaling the games in " + folder);
+
+        restoreGames(path, store);
+        SNAPSHOT_SCHEDULER.scheduleAtFixedRate(() -> {
+            int segment = segments.getSegment();
+            List<CompletableFuture<Void>> saved = new ArrayList<>();
+            rooms.forEachGame(game -> saved.add(snapshot(game)));
+            // skipped if a snapshot could not be written, the previous checkpoint stays
+            CompletableFuture.allOf(saved.toArray(new CompletableFuture<?>[0])).thenRun(() -> store.saveCheckpoint(segment));
+        }, SNAPSHOT_INTERVAL, SNAPSHOT_INTERVAL, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Takes a snapshot of a game on its loop and writes it in the background, if the games are journaled.
+     *
+     * @param game The game to be snapshotted.
+     * @return A future completed once the snapshot is written, or at once if there is nothing to write.
+     */
+    public static CompletableFuture<Void> snapshot(Game game) {
+        SnapshotStore store = snapshots;
+        if (store == null) return CompletableFuture.completedFuture(null);
+        return CompletableFuture
+                .supplyAsync(() -> game.snapshot(mappedJournal.getSegment()), game::execute)
+                .thenCompose(snapshot -> snapshot != null ? store.save(snapshot) : CompletableFuture.completedFuture(null));
+    }
+
+    /**
+     * Resumes the games that had not ended, each from its latest snapshot and the records journaled after it,
+     * or from its start if it has no snapshot yet. Only the segments written since the oldest snapshot are read.
+     *
+     * @param folder The folder of the journal.
+     * @param store The snapshots of the games.
+     * @throws IOException If the journal or the snapshots cannot be read.
+     */
+    private static void restoreGames(Path folder, SnapshotStore store) throws IOException {
+        long start = System.nanoTime();
+        Map<Long, Snapshot> latest = store.load().stream().collect(Collectors.toMap(Snapshot::getGame, snapshot -> snapshot));
+        int from = latest.values().stream().mapToInt(Snapshot::getSegment).reduce(store.loadCheckpoint(), Math::min);
+        Map<Long, List<Entry>> games = JournalReader.read(folder, from).stream()
+                .collect(Collectors.groupingBy(Entry::getGame, LinkedHashMap::new, Collectors.toList()));
+        latest.keySet().forEach(seed -> games.putIfAbsent(seed, List.of()));
+
+        int restored = 0;
+        for (Map.Entry<Long, List<Entry>> game : games.entrySet()) {
+            long seed = game.getKey();
+            List<Entry> records = game.getValue();
+            Snapshot snapshot = latest.get(seed);
+            if (records.stream().anyMatch(record -> record.getEvent() == Event.END)) {
+                if (snapshot != null) store.delete(seed);
+                continue;
+            }
+
+            if (snapshot != null) {
+                rooms.restore(snapshot.getNames(), seed, snapshot, Replay.after(snapshot, records), SESSION_GRACE);
+            } else if (!records.isEmpty() && records.get(0).getEvent() == Event.START) {
+                rooms.restore(records.get(0).getNames(), seed, null, records, SESSION_GRACE);
+            } else {
+                continue; // started before the segments read, its snapshot is gone
+            }
+            restored++;
+        }
+        System.out.printf("Restored %d games in %d ms%n", restored, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    /**
+     * Forgets the snapshot of a game that has ended.
+     *
+     * @param game The game that has ended.
+     */
+    public static void forget(Game game) {
+        if (snapshots != null && game != null) snapshots.delete(game.getSeed());
+    }
+
+    /**
+     * Retrieves the journal receiving the actions of every game.
+     *
+     * @return The journal, dropping everything unless the server was started with '-journal'.
+     */
+    public static Journal getJournal() {
+        return journal;
+    }
+
+    /**
+     * Registers a new client connection served by its own thread.
      *
      * @param socket The socket representing the client connection.
      */
     public static void register(Socket socket) {
         System.out.println("New client connection");
-        ClientHandler clientHandler = new ClientHandler(socket);
+        ClientHandler clientHandler = new SocketClientHandler(socket);
+        register(clientHandler);
+        ExecutionMode.current().newThread(clientHandler).start();
+    }
+
+    /**
+     * Registers a new client connection.
+     *
+     * @param clientHandler The client handler of the connection.
+     */
+    public static void register(ClientHandler clientHandler) {
         clientList.add(clientHandler);
-        new Thread(clientHandler).start();
     }
 
     /**
-     * Start Game if conditions are met
+     * Routes a newly named client into a room, the room starts its game once it is full.
+     *
+     * @param clientHandler The client handler that has just been welcomed.
      */
-    public static void addPlayer() {
-        int playerCount = (int) clientList.stream().filter(clientHandler -> clientHandler.getPlayer() != null).count();
-        if (playerCount >= PLAYER_COUNT && game == null) {
-            game = new Game(clientList);
-            System.out.println("The game is starting...");
-            game.startGame();
-        }
+    public static void addPlayer(ClientHandler clientHandler) {
+        rooms.assign(clientHandler);
     }
 
     /**
-     * Sends a command to all connected clients.
+     * Gives a client coming back the seat of the session whose token it presents.
      *
+     * @param clientHandler The client handler of the new connection, holding the token presented.
+     * @param features The features the client asks for.
+     * @return The room the client is back in, or null if the session cannot be resumed.
+     */
+    public static Room resume(ClientHandler clientHandler, Set<Feature> features) {
+        return rooms.resume(clientHandler, features);
+    }
+
+    /**
+     * Lets a client watch the game of a room without playing.
+     *
+     * @param clientHandler The client handler of the spectator.
+     * @param id The id of the room, or -1 for any running game.
+     * @return The stream of the spectator, or null if there is no such game.
+     */
+    public static Spectator watch(ClientHandler clientHandler, int id) {
+        return rooms.watch(clientHandler, id);
+    }
+
+    /**
+     * Sends a command to all clients sharing the room of the given client.
+     *
+     * @param ignoreClient The client whose room is targeted, it does not receive the command.
      * @param command The command to be sent.
      * @param args Additional arguments for the command, if any.
      */
     public static void broadcast(ClientHandler ignoreClient, Command command, String... args) {
-        clientList.stream()
-            .filter(clientHandler -> !clientHandler.equals(ignoreClient))
-            .forEach(clientHandler -> clientHandler.sendCommand(command, args));
+        Room room = ignoreClient.getRoom();
+        if (room != null) room.broadcast(ignoreClient, command, args);
     }
 
     /**
@@ -75,50 +305,61 @@ public class ServerGame {
      * @return true if the name is valid (i.e., unique), false otherwise.
      */
     public static boolean isNameValid(String name) {
-        for (ClientHandler clientHandler: clientList) {
-            if (clientHandler.getPlayer() != null && clientHandler.getPlayer().getName().equals(name)) return false;
+        synchronized (clientList) {
+            for (ClientHandler clientHandler: clientList) {
+                if (clientHandler.getPlayer() != null && clientHandler.getPlayer().getName().equals(name)) return false;
+            }
         }
-        return true;
+        return !rooms.isWaiting(name);
     }
 
     /**
-     * Removes the specified client handler from the client list.
+     * Removes the specified client handler from the client list and from its room.
+     * A client whose connection dropped during a game keeps its seat for SESSION_GRACE seconds.
      *
      * @param clientHandler The client handler to be removed.
+     * @param resumable Flag indicating whether the client may resume its session, false when it has left on purpose.
      */
-    public static void removeClient(ClientHandler clientHandler) {
+    public static void removeClient(ClientHandler clientHandler, boolean resumable) {
         clientList.remove(clientHandler);
-        if (game != null) game.gameOver(clientHandler);
+        Spectator spectator = clientHandler.getSpectator();
+        if (spectator != null) clientHandler.stopWatching(spectator);
+        Room room = clientHandler.getRoom();
+        if (room == null) return;
+
         Player player = clientHandler.getPlayer();
-        clientList.forEach((client) ->
-            client.sendCommand(Command.NOTIFY, (player == null ? "A client" : player.getName()) + " has left the server and game")
+        if (resumable && clientHandler.getToken() != null && rooms.suspend(clientHandler, clientHandler.getToken(), SESSION_GRACE)) {
+            room.broadcast(
+                clientHandler,
+                Command.NOTIFY,
+                player.getName() + " has lost their connection, waiting " + SESSION_GRACE + " seconds for them"
+            );
+            return;
+        }
+
+        room.leave(clientHandler);
+        room.broadcast(
+            clientHandler,
+            Command.NOTIFY,
+            (player == null ? "A client" : player.getName()) + " has left the server and game"
         );
     }
 
     /**
-     * Retrieves the instance of the current game.
+     * Retrieves the policy of the outbound queues of the connections.
      *
-     * @return The instance of the current game.
+     * @return The outbound policy, set with '-outbound' followed by the capacity of the queues.
      */
-    public static Game getGame() {
-        return game;
+    public static OutboundPolicy getOutboundPolicy() {
+        return outboundPolicy;
     }
 
     /**
-     * Determines if the game has started.
+     * Retrieves the room manager hosting all the games of this server.
      *
-     * @return true if the game has started, false otherwise.
-     */
-    public static boolean hasEnded() {
-        return game == null;
-    }
-
-    /**
-     * Ends the current game by resetting the game instance and printing a message.
+     * @return The room manager.
      */
-    public static void EndGame() {
-        game = null;
-        clientList.forEach(clientHandler -> clientHandler.getPlayer().reset());
-        System.out.println("A game has ended");
+    public static RoomManager getRooms() {
+        return rooms;
     }
-}
\ No newline at end of file
+}
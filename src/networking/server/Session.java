@@ -0,0 +1,71 @@
+package networking.server;
+
+import logic.Scheduler;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * Seat kept for a client whose connection dropped during a game, until the client resumes it with its token
+ * or the grace period is over.
+ */
+public class Session {
+
+    public static final int TOKEN_BYTES = 16;
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final String token;
+    private final Room room;
+    private final AbsentClientHandler seat;
+    private volatile Scheduler.Timeout expiry;
+
+    public Session(String token, Room room, AbsentClientHandler seat) {
+        this.token = token;
+        this.room = room;
+        this.seat = seat;
+    }
+
+    /**
+     * Creates a token that cannot be guessed, only made of characters allowed in the protocol arguments.
+     *
+     * @return The new token.
+     */
+    public static String newToken() {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        RANDOM.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    public Room getRoom() {
+        return room;
+    }
+
+    /**
+     * Retrieves the seat holding the player while the client is away.
+     *
+     * @return The seat.
+     */
+    public AbsentClientHandler getSeat() {
+        return seat;
+    }
+
+    /**
+     * Sets the end of the grace period, cancelled when the session is resumed or its game ends.
+     *
+     * @param expiry The handle of the scheduled expiry.
+     */
+    void setExpiry(Scheduler.Timeout expiry) {
+        this.expiry = expiry;
+    }
+
+    /**
+     * Cancels the end of the grace period.
+     */
+    void cancel() {
+        if (expiry != null) expiry.cancel();
+    }
+}
@@ -0,0 +1,78 @@
+package networking.server;
+
+import metrics.Metrics;
+import networking.protocol.ExecutionMode;
+
+import java.io.*;
+import java.net.Socket;
+import java.util.concurrent.Semaphore;
+
+public class SocketClientHandler extends ClientHandler {
+
+    private final Socket socket;
+    private final Semaphore flushes = new Semaphore(0); // flushes asked for since the writer last woke up
+
+    public SocketClientHandler(Socket socket) {
+        this.socket = socket;
+        init(socket);
+    }
+
+    @Override
+    public void run() {
+        ExecutionMode.current().newThread(this::writeQueued).start();
+        try {
+            readFrames();
+        } catch (IOException ignored) {}
+        shutdown();
+    }
+
+    private void init(Socket socket) {
+        try {
+            input = socket.getInputStream();
+            output = new BufferedOutputStream(socket.getOutputStream());
+        } catch (IOException e) {
+            shutdown();
+        }
+    }
+
+    /**
+     * Asks the writer thread of the connection to write the queued messages, the caller never waits for the socket.
+     */
+    @Override
+    protected void flush() {
+        flushes.release();
+    }
+
+    /**
+     * Writes the queued messages each time a flush is asked for, until the connection is closed.
+     * Only this thread blocks when the client does not read.
+     */
+    private void writeQueued() {
+        try {
+            while (!isClosed()) {
+                flushes.acquire();
+                flushes.drainPermits();
+                byte[] frame;
+                while ((frame = outbound.poll()) != null) output.write(frame);
+                output.flush();
+                Metrics.flushed();
+                drained();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            shutdown();
+        }
+    }
+
+    @Override
+    protected void close() {
+        outbound.clear();
+        flushes.release(); // lets the writer see the connection is closed
+        try {
+            socket.close(); // closes the streams without flushing them, the writer may be blocked on a full socket
+        } catch (IOException e){
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package networking.server;
+
+import networking.protocol.ExecutionMode;
+import networking.protocol.Message;
+import networking.protocol.WriteBatch;
+
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Live stream of a game to a client watching it. The game only offers its messages to a bounded buffer,
+ * they are written to the connection by another thread while the connection keeps up. A spectator whose
+ * buffer is full is disconnected, the game never waits on it.
+ */
+public class Spectator {
+
+    // messages kept for a spectator that does not read fast enough
+    public static final int BUFFER_SIZE = 256;
+    // messages queued on the connection before the stream waits for them to be written
+    public static final int MAX_BACKLOG = 64;
+
+    private final ClientHandler clientHandler;
+    private final Room room;
+    private final Queue<Message> buffer;
+    private final AtomicBoolean draining;
+    private volatile boolean closed;
+
+    public Spectator(ClientHandler clientHandler, Room room) {
+        this.clientHandler = clientHandler;
+        this.room = room;
+        this.buffer = new ArrayBlockingQueue<>(BUFFER_SIZE);
+        this.draining = new AtomicBoolean(false);
+    }
+
+    public Room getRoom() {
+        return room;
+    }
+
+    public ClientHandler getClientHandler() {
+        return clientHandler;
+    }
+
+    /**
+     * Adds a message to the stream without waiting, disconnecting the spectator if its buffer is full.
+     *
+     * @param message The message to be sent.
+     */
+    public void offer(Message message) {
+        if (closed) return;
+        if (!buffer.offer(message)) {
+            System.out.println("A spectator of room " + room.getId() + " is too slow and has been disconnected");
+            clientHandler.shutdown(false);
+            return;
+        }
+        resume();
+    }
+
+    /**
+     * Writes the buffered messages on another thread, unless it is already doing so.
+     * Called again by the connection once it has written its backlog.
+     */
+    public void resume() {
+        if (buffer.isEmpty() || clientHandler.isClosed()) return;
+        if (draining.compareAndSet(false, true)) ExecutionMode.current().executor().execute(this::drain);
+    }
+
+    /**
+     * Writes messages until the buffer is empty or the connection has too many messages waiting to be written.
+     */
+    private void drain() {
+        WriteBatch.run(() -> {
+            Message message;
+            while (!clientHandler.isClosed() && clientHandler.getBacklog() < MAX_BACKLOG && (message = buffer.poll()) != null) {
+                clientHandler.send(message);
+            }
+        });
+        draining.set(false);
+        if (clientHandler.getBacklog() < MAX_BACKLOG) resume(); // messages offered after the last poll
+    }
+
+    /**
+     * Stops the stream and leaves the audience of the room, the messages already buffered are still written.
+     */
+    public void close() {
+        closed = true;
+        room.unwatch(this);
+    }
+}
@@ -0,0 +1,90 @@
+package networking.server;
+
+import logic.utils.Card;
+import logic.utils.Hand;
+import logic.utils.players.Player;
+import networking.protocol.Command;
+
+public class StateSync {
+
+    // Constants
+    public static final int FULL_SYNC_INTERVAL = 16;
+
+    private static final Card[] CARDS = Card.values();
+
+    // hand of the last update, by card ordinal
+    private final int[] sentCounts;
+    private final int[] counts;
+    private Card sentTopCard;
+    private int sentPileSize;
+    private boolean delta;
+    private int sequence;
+    private int sinceFullSync;
+
+    public StateSync() {
+        this.sentCounts = new int[CARDS.length];
+        this.counts = new int[CARDS.length];
+        this.sinceFullSync = FULL_SYNC_INTERVAL;
+    }
+
+    /**
+     * Makes the following updates deltas of the previous ones, for clients that accepted the feature.
+     */
+    public void enableDelta() {
+        delta = true;
+    }
+
+    /**
+     * Sends the state of a player to its client.
+     * Delta clients get the cards added and removed since the last update, along with the pile size and the top card
+     * only when they changed, and a full update from time to time.
+     * Only called on the loop of the game.
+     *
+     * @param clientHandler The client to be updated.
+     * @param topCard The last card played, if any.
+     * @param pileSize The number of cards left in the deck.
+     * @param full Flag indicating whether the full hand has to be sent.
+     */
+    public void send(ClientHandler clientHandler, Card topCard, int pileSize, boolean full) {
+        Player player = clientHandler.getPlayer();
+        String top = topCard != null ? topCard.name() : "";
+        if (!delta) {
+            clientHandler.sendCommand(Command.PLAYERS, player.getCards(), top, pileSize + "");
+            return;
+        }
+
+        sequence++;
+        if (full || sinceFullSync >= FULL_SYNC_INTERVAL) {
+            countHand(player, sentCounts);
+            sentTopCard = topCard;
+            sentPileSize = pileSize;
+            sinceFullSync = 0;
+            clientHandler.sendCommand(Command.PLAYERS, player.getCards(), top, pileSize + "", sequence + "");
+            return;
+        }
+
+        countHand(player, counts);
+        StringBuilder added = new StringBuilder();
+        StringBuilder removed = new StringBuilder();
+        for (int i = 0; i < CARDS.length; i++) {
+            for (int n = sentCounts[i]; n < counts[i]; n++) added.append(CARDS[i].name()).append(',');
+            for (int n = counts[i]; n < sentCounts[i]; n++) removed.append(CARDS[i].name()).append(',');
+            sentCounts[i] = counts[i];
+        }
+        sinceFullSync++;
+        if (topCard != sentTopCard) {
+            clientHandler.sendCommand(Command.DELTA, added.toString(), removed.toString(), sequence + "", pileSize + "", top);
+        } else if (pileSize != sentPileSize) {
+            clientHandler.sendCommand(Command.DELTA, added.toString(), removed.toString(), sequence + "", pileSize + "");
+        } else {
+            clientHandler.sendCommand(Command.DELTA, added.toString(), removed.toString(), sequence + "");
+        }
+        sentTopCard = topCard;
+        sentPileSize = pileSize;
+    }
+
+    private static void countHand(Player player, int[] counts) {
+        Hand hand = player.getHand();
+        for (int i = 0; i < CARDS.length; i++) counts[i] = hand.count(CARDS[i]);
+    }
+}